@@ -83,6 +83,7 @@ import io.github.thebusybiscuit.sensibletoolbox.commands.SoundCommand;
 import io.github.thebusybiscuit.sensibletoolbox.commands.UnfriendCommand;
 import io.github.thebusybiscuit.sensibletoolbox.commands.ValidateCommand;
 import io.github.thebusybiscuit.sensibletoolbox.core.IDTracker;
+import io.github.thebusybiscuit.sensibletoolbox.core.ProtectionCache;
 import io.github.thebusybiscuit.sensibletoolbox.core.STBFriendManager;
 import io.github.thebusybiscuit.sensibletoolbox.core.STBItemRegistry;
 import io.github.thebusybiscuit.sensibletoolbox.core.enderstorage.EnderStorageManager;
@@ -188,6 +189,7 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
     private STBItemRegistry itemRegistry;
     private STBFriendManager friendManager;
     private EnergyNetManager enetManager;
+    private ProtectionCache protectionCache;
     private ConfigCache configCache;
     private IDTracker<SCURelayConnection> scuRelayIDTracker;
     private ProtectionManager protectionManager;
@@ -223,6 +225,7 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
 
         friendManager = new STBFriendManager(this);
         enetManager = new EnergyNetManager(this);
+        protectionCache = new ProtectionCache(this);
 
         registerEventListeners();
         registerCommands();
@@ -351,6 +354,7 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
 
         LocationManager.getManager().save();
         LocationManager.getManager().shutdown();
+        enetManager.shutdown();
 
         friendManager.save();
 
@@ -485,6 +489,7 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
 
         enderStorageManager = new EnderStorageManager(this);
         pm.registerEvents(enderStorageManager, this);
+        pm.registerEvents(protectionCache, this);
     }
 
     private void setupProtocolLib() {
@@ -562,8 +567,22 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
     public <T> T onConfigurationValidate(ConfigurationManager configurationManager, String key, T oldVal, T newVal) {
         if (key.equals("save_interval")) {
             Preconditions.checkArgument((Integer) newVal > 0, "save_interval must be > 0");
+        } else if (key.equals("tick_budget_ns")) {
+            Preconditions.checkArgument(((Number) newVal).longValue() >= 0, "tick_budget_ns must be >= 0");
+        } else if (key.equals("save_batch_size")) {
+            Preconditions.checkArgument((Integer) newVal >= 0, "save_batch_size must be >= 0");
+        } else if (key.equals("save_budget_ns")) {
+            Preconditions.checkArgument(((Number) newVal).longValue() >= 0, "save_budget_ns must be >= 0");
+        } else if (key.equals("load_budget_ns")) {
+            Preconditions.checkArgument(((Number) newVal).longValue() >= 0, "load_budget_ns must be >= 0");
         } else if (key.equals("energy.tick_rate")) {
             Preconditions.checkArgument((Integer) newVal > 0, "energy.tick_rate must be > 0");
+        } else if (key.equals("protection_cache.ttl_ms")) {
+            Preconditions.checkArgument(((Number) newVal).longValue() >= 0, "protection_cache.ttl_ms must be >= 0");
+        } else if (key.equals("protection_cache.max_entries")) {
+            Preconditions.checkArgument((Integer) newVal >= 0, "protection_cache.max_entries must be >= 0");
+        } else if (key.equals("auto_eject_batch_size")) {
+            Preconditions.checkArgument((Integer) newVal > 0, "auto_eject_batch_size must be > 0");
         } else if (key.startsWith("gui.texture.")) {
             STBUtil.parseMaterialSpec(newVal.toString());
         } else if (key.equals("default_access")) {
@@ -596,8 +615,20 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
             }
         } else if (key.equals("save_interval")) {
             LocationManager.getManager().setSaveInterval((Integer) newVal);
+        } else if (key.equals("tick_budget_ns")) {
+            LocationManager.getManager().setTickBudget(((Number) newVal).longValue());
+        } else if (key.equals("save_batch_size") || key.equals("save_budget_ns")) {
+            LocationManager.getManager().setSaveLimits(getConfig().getInt("save_batch_size"), getConfig().getLong("save_budget_ns"));
+        } else if (key.equals("load_budget_ns")) {
+            LocationManager.getManager().setLoadBudget(((Number) newVal).longValue());
+        } else if (key.startsWith("chunk_loading.")) {
+            LocationManager.getManager().setChunkLoading(getConfig().getBoolean("chunk_loading.unload_blocks"), getConfig().getStringList("chunk_loading.keep_loaded"));
         } else if (key.equals("energy.tick_rate")) {
             scheduleEnergyNetTicker();
+        } else if (key.equals("energy.parallel_solver")) {
+            enetManager.setParallelSolver((Boolean) newVal);
+        } else if (key.startsWith("protection_cache.")) {
+            protectionCache.setLimits(getConfig().getLong("protection_cache.ttl_ms"), getConfig().getInt("protection_cache.max_entries"));
         } else if (key.startsWith("gui.texture.")) {
             STBInventoryGUI.buildStockTextures();
         } else if (key.equals("default_access")) {
@@ -610,6 +641,8 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
             getConfigCache().setNoisyMachines((Boolean) newVal);
         } else if (key.equals("creative_ender_access")) {
             getConfigCache().setCreativeEnderAccess((Boolean) newVal);
+        } else if (key.equals("auto_eject_batch_size")) {
+            getConfigCache().setAutoEjectBatchSize((Integer) newVal);
         }
     }
 
@@ -658,6 +691,10 @@ public class SensibleToolboxPlugin extends JavaPlugin implements ConfigurationLi
         return protectionManager;
     }
 
+    public ProtectionCache getProtectionCache() {
+        return protectionCache;
+    }
+
     /**
      * This returns the currently installed version of Minecraft.
      *
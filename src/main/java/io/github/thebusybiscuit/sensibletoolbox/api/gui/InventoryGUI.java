@@ -9,6 +9,7 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.ClickableGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.MonitorGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBItem;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
 
 import java.util.List;
 
@@ -221,6 +222,21 @@ public interface InventoryGUI {
      */
     void thawSlots(String frozen, int... slots);
 
+    /**
+     * Thaw a snapshot of some items into the given slots. The snapshot would
+     * have been loaded from a block's saved state.
+     *
+     * @param frozen
+     *            a snapshot of some items
+     * @param slots
+     *            the slots to thaw those items into
+     */
+    default void thawSlots(@Nullable ItemSnapshot frozen, int... slots) {
+        if (frozen != null) {
+            thawSlots(frozen.toBase64(), slots);
+        }
+    }
+
     /**
      * Eject any items in the given slots, dropping them on the ground at or
      * near the GUI's owning block or player.
@@ -12,6 +12,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.Vector;
 
 import io.github.thebusybiscuit.sensibletoolbox.api.STBInventoryHolder;
+import io.github.thebusybiscuit.sensibletoolbox.api.SensibleToolbox;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.InventoryGUI;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.ProgressMeter;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
@@ -185,6 +186,8 @@ public abstract class AbstractProcessingMachine extends BaseSTBMachine {
     /**
      * Handle auto ejecting items from the output slot(s). This is typically called
      * by implementing subclasses at the end of their onServerTick() implementation.
+     * Up to {@code auto_eject_batch_size} items (see config.yml) are ejected from
+     * the first non-empty output slot each time.
      */
     protected void handleAutoEjection() {
         if (getTicksLived() % getEjectionInterval() != 0) {
@@ -196,8 +199,11 @@ public abstract class AbstractProcessingMachine extends BaseSTBMachine {
             for (int slot : getOutputSlots()) {
                 ItemStack s = getInventoryItem(slot);
                 if (s != null) {
-                    if (autoEject(s)) {
-                        s.setAmount(s.getAmount() - 1);
+                    int batchSize = SensibleToolbox.getInstance().getConfigCache().getAutoEjectBatchSize();
+                    int nEjected = autoEject(s, Math.min(s.getAmount(), batchSize));
+
+                    if (nEjected > 0) {
+                        s.setAmount(s.getAmount() - nEjected);
                         setInventoryItem(slot, s);
                         setJammed(false);
                     } else {
@@ -212,21 +218,21 @@ public abstract class AbstractProcessingMachine extends BaseSTBMachine {
         setEjectionInterval(ejectFailed ? 20 : 1);
     }
 
-    private boolean autoEject(ItemStack result) {
+    private int autoEject(@Nonnull ItemStack result, int amount) {
         Location l = getRelativeLocation(getAutoEjectDirection());
         Block target = l.getBlock();
         ItemStack item = result.clone();
-        item.setAmount(1);
+        item.setAmount(amount);
 
         if (!target.getType().isSolid() || Tag.WALL_SIGNS.isTagged(target.getType())) {
-            // no (solid) block there - just drop the item
+            // no (solid) block there - just drop the items, as a single entity
             Item i = l.getWorld().dropItem(l.add(0.5, 0.5, 0.5), item);
             i.setVelocity(new Vector(0, 0, 0));
-            return true;
+            return amount;
         } else {
             BaseSTBBlock stb = LocationManager.getManager().get(l);
-            int nInserted = stb instanceof STBInventoryHolder ? ((STBInventoryHolder) stb).insertItems(item, getAutoEjectDirection().getOppositeFace(), false, getOwner()) : VanillaInventoryUtils.vanillaInsertion(target, item, 1, getAutoEjectDirection().getOppositeFace(), false, getOwner());
-            return nInserted > 0;
+            // the target may take fewer items than offered, which are then left in the output slot
+            return stb instanceof STBInventoryHolder ? ((STBInventoryHolder) stb).insertItems(item, getAutoEjectDirection().getOppositeFace(), false, getOwner()) : getNeighbourInventory(getAutoEjectDirection()).map(inv -> VanillaInventoryUtils.vanillaInsertion(target, inv, item, amount, getAutoEjectDirection().getOppositeFace(), false, getOwner())).orElse(0);
         }
     }
 }
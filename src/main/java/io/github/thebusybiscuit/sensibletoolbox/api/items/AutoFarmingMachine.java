@@ -127,7 +127,7 @@ public abstract class AutoFarmingMachine extends BaseSTBMachine {
             return true;
         } else {
             BaseSTBBlock stb = LocationManager.getManager().get(l);
-            int nInserted = stb instanceof STBInventoryHolder ? ((STBInventoryHolder) stb).insertItems(i, getAutoEjectDirection().getOppositeFace(), false, getOwner()) : VanillaInventoryUtils.vanillaInsertion(target, i, 1, getAutoEjectDirection().getOppositeFace(), false, getOwner());
+            int nInserted = stb instanceof STBInventoryHolder ? ((STBInventoryHolder) stb).insertItems(i, getAutoEjectDirection().getOppositeFace(), false, getOwner()) : getNeighbourInventory(getAutoEjectDirection()).map(inv -> VanillaInventoryUtils.vanillaInsertion(target, inv, i, 1, getAutoEjectDirection().getOppositeFace(), false, getOwner())).orElse(0);
             return nInserted > 0;
         }
     }
@@ -4,6 +4,7 @@ import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -33,6 +34,7 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.block.SignChangeEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.util.ChatPaginator;
@@ -48,6 +50,8 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.InventoryGUI;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.STBGUIHolder;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.BlockAccess;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
+import io.github.thebusybiscuit.sensibletoolbox.utils.NeighbourInventoryCache;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
 import io.github.thebusybiscuit.sensibletoolbox.utils.UnicodeSymbol;
 import me.desht.dhutils.Debugger;
@@ -60,6 +64,7 @@ import me.desht.dhutils.blocks.RelativePosition;
  */
 public abstract class BaseSTBBlock extends BaseSTBItem {
 
+    // block metadata, kept for other plugins; STB itself looks blocks up with LocationManager#get()
     public static final String STB_BLOCK = "STB_Block";
     public static final String STB_MULTI_BLOCK = "STB_MultiBlock_Origin";
     private boolean needToScanSigns;
@@ -75,6 +80,10 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
     private int lastPower;
     private boolean pulsing;
     private boolean pendingRemoval;
+    private boolean snapshotting;
+    private boolean dirty;
+    // created on first use, since most blocks never look at their neighbours' inventories
+    private NeighbourInventoryCache neighbourInventories;
 
     protected BaseSTBBlock() {
         super();
@@ -116,6 +125,41 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
         return conf;
     }
 
+    /**
+     * Take a snapshot of this block's state for saving. This is the same as
+     * {@link #freeze()}, except that any items frozen via {@link #freezeItems(ItemStack...)}
+     * are only copied as an {@link ItemSnapshot}, to be encoded later, possibly
+     * off the main thread. The returned configuration must not share any mutable
+     * state with this block.
+     *
+     * @return a YamlConfiguration representing this block's state
+     */
+    @Nonnull
+    public final YamlConfiguration snapshot() {
+        snapshotting = true;
+
+        try {
+            return freeze();
+        } finally {
+            snapshotting = false;
+        }
+    }
+
+    /**
+     * Freeze some items for storing in the configuration built by {@link #freeze()}.
+     * This is a base64-encoded string, or an {@link ItemSnapshot} if this block's
+     * state is being snapshotted for saving.
+     *
+     * @param items
+     *            the items to freeze; may contain null elements
+     * @return the frozen items
+     */
+    @Nonnull
+    protected final Object freezeItems(@Nonnull ItemStack... items) {
+        ItemSnapshot snapshot = ItemSnapshot.of(items);
+        return snapshotting ? snapshot : snapshot.toBase64();
+    }
+
     /**
      * Get this block's current redstone behaviour; whether it ignores the presence of a redstone signal,
      * or requires the signal to be low or high to operate.
@@ -239,7 +283,13 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
      * @return the number of ticks lived
      */
     public final long getTicksLived() {
-        return ticksLived;
+        if (!isPlaced()) {
+            return ticksLived;
+        }
+
+        // while the block is ticking, its age is kept by the tick scheduler
+        long age = LocationManager.getManager().getTicksLived(this);
+        return age >= 0 ? age : ticksLived;
     }
 
     /**
@@ -356,6 +406,11 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
      *            the the block physics event
      */
     public final void handlePhysicsEvent(@Nonnull BlockPhysicsEvent e) {
+        if (neighbourInventories != null) {
+            // a neighbouring block may have changed
+            neighbourInventories.clear();
+        }
+
         int power = e.getBlock().getBlockPower();
         if (power != lastPower) {
             Debugger.getInstance().debug(this + " redstone power change: " + lastPower + "->" + power);
@@ -432,17 +487,34 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
 
     /**
      * This method should not be called directly. It is automatically called
-     * every tick for every block placed in the world for which
-     * {@link #getTickRate()} returns a non-zero value.
+     * by the location manager when the block stops ticking, so that its age
+     * carries on from there if it starts ticking again.
+     *
+     * @param ticksLived
+     *            the block's current age in ticks
      */
+    public final void setTicksLived(BlockAccess blockAccess, long ticksLived) {
+        Preconditions.checkArgument(blockAccess != null, "Don't call this method directly");
+        this.ticksLived = ticksLived;
+    }
+
+    /**
+     * Advance this block's age by one tick. The location manager now keeps track of
+     * the age of each ticking block itself, so this has no effect while the block is ticking.
+     *
+     * @deprecated blocks are no longer ticked every tick; this method is not called by
+     *             STB, and will be removed
+     */
+    @Deprecated
     public final void tick() {
         ticksLived++;
     }
 
     /**
-     * Called every tick for each STB block that is placed in the world, for
-     * any STB block where {@link #getTickRate()} returns a non-zero value.
-     * Override this method to define any periodic behaviour of the block.
+     * Called every {@link #getTickRate()} ticks for each STB block that is placed
+     * in the world, for any STB block where {@link #getTickRate()} returns a
+     * non-zero value. Override this method to define any periodic behaviour of
+     * the block.
      */
     public void onServerTick() {}
 
@@ -451,6 +523,10 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
      * be called this frequently. Override this method to have the block
      * tick at the desired frequency. The default rate of 0 means that the
      * block will not tick at all.
+     * <p>
+     * A change in the value returned here is picked up after the block's next
+     * {@link #onServerTick()}; call {@link LocationManager#updateTickRate(BaseSTBBlock)}
+     * to have it take effect straight away.
      */
     public int getTickRate() {
         return 0;
@@ -495,6 +571,30 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
         }
     }
 
+    /**
+     * Get the vanilla inventory of the block next to this one in the given direction.
+     * The inventory is cached, until a neighbouring block changes.
+     *
+     * @param face
+     *            the direction
+     * @return the neighbouring block's inventory, or an empty Optional if it has none
+     *         (or if this block has not been placed)
+     */
+    @Nonnull
+    public final Optional<Inventory> getNeighbourInventory(@Nonnull BlockFace face) {
+        Location loc = getLocation();
+
+        if (loc == null) {
+            return Optional.empty();
+        }
+
+        if (neighbourInventories == null) {
+            neighbourInventories = new NeighbourInventoryCache();
+        }
+
+        return neighbourInventories.get(loc.getBlock(), face);
+    }
+
     /**
      * Get a persistable location for the base block of this STB block. This
      * could be null if called on an STB Block object which has not yet been
@@ -664,6 +764,47 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
         onBlockRegistered(l, isPlacing);
     }
 
+    /**
+     * Drop this block from memory, because its chunk is being unloaded. The block
+     * stays in the world, and its state has already been saved; it will be loaded
+     * again, as a new object, along with its chunk. Calls {@link #onBlockUnloaded(Location)}.
+     *
+     * @param blockAccess
+     *            Don't call this method directly
+     * @param l
+     *            the location of the block
+     */
+    public final void unload(BlockAccess blockAccess, Location l) {
+        Preconditions.checkArgument(blockAccess != null, "Don't call this method directly");
+        l.getBlock().removeMetadata(BaseSTBBlock.STB_BLOCK, SensibleToolboxPlugin.getInstance());
+
+        for (RelativePosition pos : getBlockStructure()) {
+            Block auxBlock = getAuxiliaryBlock(l, pos);
+            auxBlock.removeMetadata(STB_MULTI_BLOCK, SensibleToolboxPlugin.getInstance());
+        }
+
+        if (getGUI() != null) {
+            getGUI().hideForAll();
+        }
+
+        if (this instanceof ChargeableBlock) {
+            SensibleToolboxPlugin.getInstance().getEnergyNetManager().onMachineRemoved((ChargeableBlock) this);
+        }
+
+        onBlockUnloaded(l);
+    }
+
+    /**
+     * Called when an STB block is being dropped from memory because its chunk is
+     * being unloaded. Unlike {@link #onBlockUnregistered(Location)}, the block
+     * stays in the world, so nothing should be dropped; use this method to release
+     * anything which was set up in {@link #onBlockRegistered(Location, boolean)}.
+     *
+     * @param l
+     *            location of the base (primary) block of this STB block
+     */
+    public void onBlockUnloaded(Location l) {}
+
     /**
      * Called when an STB block has been broken and is being unregistered. The
      * block's location and GUI (if any) are still valid at this point, but
@@ -815,17 +956,38 @@ public abstract class BaseSTBBlock extends BaseSTBItem {
      *            if true, also redraw the block in the world
      */
     public final void update(boolean redraw) {
-        Location loc = getLocation();
-
-        if (loc != null) {
+        if (persistableLocation != null) {
             if (redraw) {
-                repaint(loc.getBlock());
+                repaint(getLocation().getBlock());
             }
 
-            LocationManager.getManager().updateLocation(loc);
+            // if already dirty, the block is queued to be saved and there's nothing more to do
+            if (!dirty) {
+                LocationManager.getManager().updateBlock(this);
+            }
         }
     }
 
+    /**
+     * Check if this block has been modified since it was last queued for saving.
+     *
+     * @return true if the block has unsaved changes
+     */
+    public final boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Don't call this method directly.
+     *
+     * @param dirty
+     *            true if the block has unsaved changes, false once they have been queued for saving
+     */
+    public final void setDirty(BlockAccess blockAccess, boolean dirty) {
+        Preconditions.checkArgument(blockAccess != null, "Don't call this method directly");
+        this.dirty = dirty;
+    }
+
     /**
      * Called when a block needs to be repainted due to some state change. If
      * you override this method (to repaint auxiliary blocks), be sure to call
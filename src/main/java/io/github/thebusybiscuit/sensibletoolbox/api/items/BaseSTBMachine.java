@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.google.common.base.Strings;
@@ -50,6 +51,7 @@ import io.github.thebusybiscuit.sensibletoolbox.items.upgrades.AbstractMachineUp
 import io.github.thebusybiscuit.sensibletoolbox.items.upgrades.RegulatorUpgrade;
 import io.github.thebusybiscuit.sensibletoolbox.items.upgrades.SpeedUpgrade;
 import io.github.thebusybiscuit.sensibletoolbox.items.upgrades.ThoroughnessUpgrade;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
 import io.github.thebusybiscuit.sensibletoolbox.utils.UnicodeSymbol;
 import me.desht.dhutils.Debugger;
@@ -71,8 +73,9 @@ public abstract class BaseSTBMachine extends BaseSTBBlock implements ChargeableB
     private BlockFace autoEjectDirection;
     private boolean needToProcessUpgrades;
     private int chargeMeterId;
-    private final String frozenInput;
-    private final String frozenOutput;
+    // either a base64-encoded string or an ItemSnapshot, depending on how the machine was saved
+    private final Object frozenInput;
+    private final Object frozenOutput;
     private final List<AbstractMachineUpgrade> upgrades = new ArrayList<>();
     private final Map<BlockFace, EnergyNet> energyNets = new EnumMap<>(BlockFace.class);
     private int regulatorAmount;
@@ -122,8 +125,8 @@ public abstract class BaseSTBMachine extends BaseSTBBlock implements ChargeableB
         }
 
         needToProcessUpgrades = true;
-        frozenInput = conf.getString("inputSlots");
-        frozenOutput = conf.getString("outputSlots");
+        frozenInput = conf.get("inputSlots");
+        frozenOutput = conf.get("outputSlots");
     }
 
     @Override
@@ -142,8 +145,8 @@ public abstract class BaseSTBMachine extends BaseSTBBlock implements ChargeableB
         conf.set("upgrades", upg);
 
         if (getGUI() != null) {
-            conf.set("inputSlots", getGUI().freezeSlots(getInputSlots()));
-            conf.set("outputSlots", getGUI().freezeSlots(getOutputSlots()));
+            conf.set("inputSlots", freezeItems(getSlotItems(getInputSlots())));
+            conf.set("outputSlots", freezeItems(getSlotItems(getOutputSlots())));
         }
         if (installedCell != null) {
             conf.set("energyCell", installedCell.getItemTypeID());
@@ -153,6 +156,25 @@ public abstract class BaseSTBMachine extends BaseSTBBlock implements ChargeableB
         return conf;
     }
 
+    private void thawSlots(@Nonnull InventoryGUI gui, @Nullable Object frozen, @Nonnull int[] slots) {
+        if (frozen instanceof ItemSnapshot) {
+            gui.thawSlots((ItemSnapshot) frozen, slots);
+        } else if (frozen instanceof String) {
+            gui.thawSlots((String) frozen, slots);
+        }
+    }
+
+    @Nonnull
+    private ItemStack[] getSlotItems(@Nonnull int[] slots) {
+        ItemStack[] items = new ItemStack[slots.length];
+
+        for (int i = 0; i < slots.length; i++) {
+            items[i] = getGUI().getItem(slots[i]);
+        }
+
+        return items;
+    }
+
     /**
      * Define the inventory slots which may be used for placing items into this
      * machine.
@@ -424,13 +446,13 @@ public abstract class BaseSTBMachine extends BaseSTBBlock implements ChargeableB
             gui.setSlotType(slot, SlotType.ITEM);
         }
 
-        gui.thawSlots(frozenInput, getInputSlots());
+        thawSlots(gui, frozenInput, getInputSlots());
 
         for (int slot : getOutputSlots()) {
             gui.setSlotType(slot, SlotType.ITEM);
         }
 
-        gui.thawSlots(frozenOutput, getOutputSlots());
+        thawSlots(gui, frozenOutput, getOutputSlots());
 
         int[] upgradeSlots = getUpgradeSlots();
 
@@ -1,14 +1,18 @@
 package io.github.thebusybiscuit.sensibletoolbox.api.recipes;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.google.common.base.Preconditions;
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import com.google.common.base.Joiner;
 
@@ -22,6 +26,9 @@ import me.desht.dhutils.MiscUtil;
  */
 public class CustomRecipeCollection {
 
+    // single-ingredient recipes, indexed by the ingredient's material
+    private final Map<Material, SingleRecipes> singleRecipes = new EnumMap<>(Material.class);
+    // all other recipes, keyed by CustomRecipe#makeKey()
     private final Map<String, ProcessingResult> recipes = new HashMap<>();
 
     /**
@@ -37,10 +44,21 @@ public class CustomRecipeCollection {
         Preconditions.checkArgument(recipe != null, "A custom recipe cannot be null");
         String key = recipe.makeKey(false);
         ProcessingResult pr = new ProcessingResult(recipe.getResult(), recipe.getProcessingTime());
-        recipes.put(key, pr);
 
-        if (allowWild) {
-            recipes.put(recipe.makeKey(true), pr);
+        if (recipe instanceof SimpleCustomRecipe) {
+            ItemStack ingredient = ((SimpleCustomRecipe) recipe).getIngredient();
+            SingleRecipes single = singleRecipes.computeIfAbsent(ingredient.getType(), type -> new SingleRecipes());
+            single.put(RecipeKey.of(ingredient, false), pr);
+
+            if (allowWild) {
+                single.put(RecipeKey.of(ingredient, true), pr);
+            }
+        } else {
+            recipes.put(key, pr);
+
+            if (allowWild) {
+                recipes.put(recipe.makeKey(true), pr);
+            }
         }
 
         Debugger.getInstance().debug("added custom recipe: [" + key + "] => " + recipe.getResult() + " via " + recipe.getProcessorID());
@@ -66,6 +84,15 @@ public class CustomRecipeCollection {
      * @return a processing result, or null if nothing found
      */
     public ProcessingResult get(boolean shaped, ItemStack... input) {
+        if (input.length == 1 && input[0] != null) {
+            // common case
+            ProcessingResult res = getSingle(input[0]);
+
+            if (res != null || recipes.isEmpty()) {
+                return res;
+            }
+        }
+
         String key = makeKey(shaped, false, input);
         ProcessingResult res = recipes.get(key);
 
@@ -88,14 +115,40 @@ public class CustomRecipeCollection {
      * @return true if there is a known recipe, false otherwise
      */
     public boolean hasRecipe(boolean shaped, ItemStack... input) {
-        String key = makeKey(shaped, false, input);
+        return get(shaped, input) != null;
+    }
 
-        if (recipes.containsKey(key)) {
-            return true;
-        } else {
-            key = makeKey(shaped, true, input);
-            return recipes.containsKey(key);
+    @Nullable
+    private ProcessingResult getSingle(@Nonnull ItemStack item) {
+        SingleRecipes single = singleRecipes.get(item.getType());
+
+        if (single == null) {
+            return null;
+        } else if (!item.hasItemMeta()) {
+            // no data value or display name to compare, so no need to look at any meta
+            return single.plain != null ? single.plain : single.wild;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        int data = RecipeKey.getData(meta);
+
+        if (!meta.hasDisplayName()) {
+            ProcessingResult res;
+
+            if (data == 0) {
+                res = single.plain;
+            } else {
+                res = single.withMeta == null ? null : single.withMeta.get(new RecipeKey(item.getType(), data, null));
+            }
+
+            return res != null ? res : single.wild;
+        } else if (single.withMeta == null) {
+            return null;
         }
+
+        String displayName = meta.getDisplayName();
+        ProcessingResult res = single.withMeta.get(new RecipeKey(item.getType(), data, displayName));
+        return res != null ? res : single.withMeta.get(new RecipeKey(item.getType(), RecipeKey.WILDCARD, displayName));
     }
 
     private String makeKey(boolean shaped, boolean ignoreData, ItemStack... input) {
@@ -119,4 +172,32 @@ public class CustomRecipeCollection {
 
         return Joiner.on(";").join(MiscUtil.asSortedList(l));
     }
+
+    /**
+     * The single-ingredient recipes for one ingredient material. The recipes for the plain
+     * material, and for any data value of it, are held directly, so that most lookups don't
+     * need to look at the ingredient's meta or make a {@link RecipeKey} at all.
+     */
+    private static final class SingleRecipes {
+
+        private ProcessingResult plain;
+        private ProcessingResult wild;
+        private Map<RecipeKey, ProcessingResult> withMeta;
+
+        private void put(@Nonnull RecipeKey key, @Nonnull ProcessingResult pr) {
+            if (!key.needsMeta()) {
+                if (key.getData() == 0) {
+                    plain = pr;
+                } else {
+                    wild = pr;
+                }
+            } else {
+                if (withMeta == null) {
+                    withMeta = new HashMap<>();
+                }
+
+                withMeta.put(key, pr);
+            }
+        }
+    }
 }
@@ -1,10 +1,11 @@
 package io.github.thebusybiscuit.sensibletoolbox.api.recipes;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +25,10 @@ import me.desht.dhutils.Debugger;
  */
 public class FuelItems {
 
-    private final Map<ItemStack, FuelValues> fuels = new HashMap<>();
+    // fuels which must match exactly, split by whether the item has any meta
+    private final Map<Material, FuelValues> plainFuels = new EnumMap<>(Material.class);
+    private final Map<Material, List<MetaFuel>> metaFuels = new EnumMap<>(Material.class);
+    // fuels which match any item of their material
     private final Map<Material, FuelValues> fuelMaterials = new EnumMap<>(Material.class);
     private final Set<ItemStack> fuelInfo = new HashSet<>();
 
@@ -43,8 +47,12 @@ public class FuelItems {
     public void addFuel(ItemStack s, boolean ignoreData, double chargePerTick, int burnTime) {
         if (ignoreData) {
             fuelMaterials.put(s.getType(), new FuelValues(chargePerTick, burnTime));
+        } else if (!s.hasItemMeta()) {
+            plainFuels.put(s.getType(), new FuelValues(chargePerTick, burnTime));
         } else {
-            fuels.put(getSingle(s), new FuelValues(chargePerTick, burnTime));
+            List<MetaFuel> list = metaFuels.computeIfAbsent(s.getType(), type -> new ArrayList<>());
+            list.removeIf(fuel -> fuel.item.isSimilar(s));
+            list.add(new MetaFuel(s.clone(), new FuelValues(chargePerTick, burnTime)));
         }
 
         ItemStack info = s.clone();
@@ -67,10 +75,30 @@ public class FuelItems {
      * @return the fuel values for the item, or null if this item is not known
      */
     public FuelValues get(ItemStack s) {
-        FuelValues res = fuels.get(getSingle(s));
+        FuelValues res = getExact(s);
         return res == null ? fuelMaterials.get(s.getType()) : res;
     }
 
+    private FuelValues getExact(ItemStack s) {
+        if (!s.hasItemMeta()) {
+            // no need to look at (or copy) the item's meta at all
+            return plainFuels.get(s.getType());
+        }
+
+        List<MetaFuel> list = metaFuels.get(s.getType());
+
+        if (list != null) {
+            for (MetaFuel fuel : list) {
+                // isSimilar() ignores the stack size, so the item needn't be cloned
+                if (fuel.item.isSimilar(s)) {
+                    return fuel.values;
+                }
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Check if the given can be used as a fuel.
      *
@@ -79,16 +107,17 @@ public class FuelItems {
      * @return true if the item is a fuel, false otherwise
      */
     public boolean has(ItemStack s) {
-        return fuels.containsKey(getSingle(s)) || fuelMaterials.containsKey(s.getType());
+        return get(s) != null;
     }
 
-    private ItemStack getSingle(ItemStack s) {
-        if (s.getAmount() == 1) {
-            return s;
-        } else {
-            ItemStack stack2 = s.clone();
-            stack2.setAmount(1);
-            return stack2;
+    private static final class MetaFuel {
+
+        private final ItemStack item;
+        private final FuelValues values;
+
+        private MetaFuel(ItemStack item, FuelValues values) {
+            this.item = item;
+            this.values = values;
         }
     }
 }
@@ -0,0 +1,121 @@
+package io.github.thebusybiscuit.sensibletoolbox.api.recipes;
+
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * The parts of a single recipe ingredient which a recipe lookup compares: the item's
+ * material, its data (damage) value and its display name. This is the structured
+ * equivalent of {@link RecipeUtil#makeRecipeKey(boolean, ItemStack)}, with the hash
+ * code worked out up front.
+ */
+final class RecipeKey {
+
+    /**
+     * The data value of an ingredient which matches any data value.
+     */
+    static final int WILDCARD = 32767;
+
+    private final Material material;
+    private final int data;
+    private final String displayName;
+    private final int hash;
+
+    RecipeKey(@Nonnull Material material, int data, @Nullable String displayName) {
+        this.material = material;
+        this.data = data;
+        this.displayName = displayName;
+
+        int h = material.hashCode();
+        h = 31 * h + data;
+        h = 31 * h + (displayName == null ? 0 : displayName.hashCode());
+        this.hash = h;
+    }
+
+    /**
+     * Make a key for the given item stack. The stack's meta is only read if it has any.
+     *
+     * @param item
+     *            the item stack
+     * @param ignoreData
+     *            if true, make a key which matches any data value
+     * @return the key
+     */
+    @Nonnull
+    static RecipeKey of(@Nonnull ItemStack item, boolean ignoreData) {
+        if (!item.hasItemMeta()) {
+            return new RecipeKey(item.getType(), ignoreData ? WILDCARD : 0, null);
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        int data = ignoreData ? WILDCARD : getData(meta);
+        return new RecipeKey(item.getType(), data, meta.hasDisplayName() ? meta.getDisplayName() : null);
+    }
+
+    /**
+     * Get the data value of an item from its meta, as {@link ItemStack#getDurability()}
+     * would.
+     *
+     * @param meta
+     *            the item's meta
+     * @return the data value
+     */
+    static int getData(@Nonnull ItemMeta meta) {
+        return meta instanceof Damageable ? ((Damageable) meta).getDamage() : 0;
+    }
+
+    @Nonnull
+    Material getMaterial() {
+        return material;
+    }
+
+    int getData() {
+        return data;
+    }
+
+    @Nullable
+    String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Check if this key needs anything beyond the material to be compared, i.e. it has a
+     * specific data value other than 0, or a display name.
+     *
+     * @return true if an item's meta is needed to match this key
+     */
+    boolean needsMeta() {
+        return displayName != null || (data != 0 && data != WILDCARD);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof RecipeKey)) {
+            return false;
+        }
+
+        RecipeKey other = (RecipeKey) o;
+        return hash == other.hash && material == other.material && data == other.data && Objects.equals(displayName, other.displayName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return material + (data == WILDCARD ? "" : ":" + data) + (displayName == null ? "" : ":" + displayName);
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.thebusybiscuit.sensibletoolbox.blocks.machines;
 
+import java.util.UUID;
+
 import javax.annotation.Nonnull;
 
 import com.google.common.base.Preconditions;
@@ -25,6 +27,7 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.CyclerGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBItem;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBMachine;
+import io.github.thebusybiscuit.sensibletoolbox.core.ProtectionCache;
 import io.github.thebusybiscuit.sensibletoolbox.items.LandMarker;
 import io.github.thebusybiscuit.sensibletoolbox.items.components.IntegratedCircuit;
 import io.github.thebusybiscuit.sensibletoolbox.items.components.ToughMachineFrame;
@@ -257,11 +260,12 @@ public class AutoBuilder extends BaseSTBMachine {
             Block b = getLocation().getWorld().getBlockAt(buildX, buildY, buildZ);
             double scuNeeded = 0.0;
             boolean advanceBuildPos = true;
-            OfflinePlayer owner = Bukkit.getOfflinePlayer(getOwner());
+            UUID owner = getOwner();
+            ProtectionCache protection = SensibleToolbox.getInstance().getProtectionCache();
 
             switch (getBuildMode()) {
                 case CLEAR -> {
-                    if (!SensibleToolbox.getProtectionManager().hasPermission(owner, b, Interaction.BREAK_BLOCK)) {
+                    if (!protection.hasPermission(owner, b, Interaction.BREAK_BLOCK)) {
                         setStatus(BuilderStatus.NO_PERMISSION);
                         updateAttachedLabelSigns();
                         return;
@@ -304,7 +308,7 @@ public class AutoBuilder extends BaseSTBMachine {
                     }
                 }
                 case FILL, WALLS, FRAME -> {
-                    if (!SensibleToolbox.getProtectionManager().hasPermission(owner, b, Interaction.PLACE_BLOCK))  {
+                    if (!protection.hasPermission(owner, b, Interaction.PLACE_BLOCK))  {
                         setStatus(BuilderStatus.NO_PERMISSION);
                         updateAttachedLabelSigns();
                         return;
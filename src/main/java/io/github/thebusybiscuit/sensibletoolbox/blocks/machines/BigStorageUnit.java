@@ -33,7 +33,7 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.GUIUtil;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.InventoryGUI;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.ToggleButton;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.AbstractProcessingMachine;
-import io.github.thebusybiscuit.sensibletoolbox.utils.BukkitSerialization;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
 import io.github.thebusybiscuit.sensibletoolbox.utils.WordUtils;
 
@@ -65,8 +65,8 @@ public class BigStorageUnit extends AbstractProcessingMachine {
         super(conf);
 
         try {
-            Inventory inv = BukkitSerialization.fromBase64(conf.getString("stored"));
-            setStoredItemType(inv.getItem(0));
+            ItemSnapshot stored = ItemSnapshot.fromConfig(conf, "stored");
+            setStoredItemType(stored == null ? null : stored.getItem(0));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -79,9 +79,7 @@ public class BigStorageUnit extends AbstractProcessingMachine {
     @Override
     public YamlConfiguration freeze() {
         YamlConfiguration conf = super.freeze();
-        Inventory inv = Bukkit.createInventory(null, 9);
-        inv.setItem(0, stored);
-        conf.set("stored", BukkitSerialization.toBase64(inv, 1));
+        conf.set("stored", freezeItems(stored));
         conf.set("amount", storageAmount);
         conf.set("locked", locked);
         return conf;
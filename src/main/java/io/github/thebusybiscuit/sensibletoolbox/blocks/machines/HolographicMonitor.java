@@ -102,4 +102,13 @@ public class HolographicMonitor extends BaseSTBBlock {
             hologram.delete();
         }
     }
+
+    @Override
+    public void onBlockUnloaded(Location l) {
+        super.onBlockUnloaded(l);
+        if (hologram != null) {
+            hologram.delete();
+            hologram = null;
+        }
+    }
 }
@@ -354,7 +354,17 @@ public class SCURelay extends BatteryBox {
     @Override
     public void onBlockUnregistered(Location l) {
         getGUI().setItem(TRANSPONDER_SLOT, null);
+        detachFromConnection();
+        super.onBlockUnregistered(l);
+    }
 
+    @Override
+    public void onBlockUnloaded(Location l) {
+        detachFromConnection();
+        super.onBlockUnloaded(l);
+    }
+
+    private void detachFromConnection() {
         SCURelayConnection connection = getTracker().get(relayId);
 
         if (connection != null) {
@@ -377,8 +387,6 @@ public class SCURelay extends BatteryBox {
         }
 
         worldID = null;
-
-        super.onBlockUnregistered(l);
     }
 
     private void updateInfoLabels(@Nonnull SCURelayConnection connection) {
@@ -7,6 +7,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.IntFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -38,14 +39,14 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.SlotType;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.AccessControlGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.RedstoneBehaviourGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
+import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
 import io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules.DirectionalItemRouterModule;
 import io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules.ItemRouterModule;
 import io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules.ReceiverModule;
 import io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules.SpeedModule;
 import io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules.StackModule;
-import io.github.thebusybiscuit.sensibletoolbox.utils.BukkitSerialization;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
-import io.github.thebusybiscuit.sensibletoolbox.utils.VanillaInventoryUtils;
 import me.desht.dhutils.Debugger;
 import me.desht.dhutils.text.LogUtils;
 
@@ -81,9 +82,10 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
         loadModules(conf);
 
         try {
-            if (conf.contains("buffer")) {
-                Inventory inv = BukkitSerialization.fromBase64(conf.getString("buffer"));
-                setBufferItem(inv.getItem(0));
+            ItemSnapshot buffer = ItemSnapshot.fromConfig(conf, "buffer");
+
+            if (buffer != null) {
+                setBufferItem(buffer.getItem(0));
             }
         } catch (IOException e) {
             LogUtils.warning(this + ": can't restore buffer item: " + e.getMessage());
@@ -92,10 +94,10 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
 
     private void loadModules(@Nonnull ConfigurationSection conf) {
         try {
-            String enc = conf.getString("moduleList");
-            if (enc != null && !enc.isEmpty()) {
-                Inventory inv = BukkitSerialization.fromBase64(conf.getString("moduleList"));
-                processModules(inv, 0);
+            ItemSnapshot modules = ItemSnapshot.fromConfig(conf, "moduleList");
+
+            if (modules != null) {
+                processModules(modules::getItem);
             }
         } catch (IOException e) {
             LogUtils.warning(this + ": can't restore module list: " + e.getMessage());
@@ -107,20 +109,18 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
         YamlConfiguration conf = super.freeze();
 
         if (getGUI() != null) {
-            Inventory modInv = Bukkit.createInventory(null, 9);
+            ItemStack[] modules = new ItemStack[9];
 
             for (int i = 0; i < 9; i++) {
-                modInv.setItem(i, getGUI().getItem(MOD_SLOT_START + i));
+                modules[i] = getGUI().getItem(MOD_SLOT_START + i);
             }
 
-            conf.set("moduleList", BukkitSerialization.toBase64(modInv));
+            conf.set("moduleList", freezeItems(modules));
         } else {
             conf.set("moduleList", "");
         }
 
-        Inventory bufferInv = Bukkit.createInventory(null, 9);
-        bufferInv.setItem(0, getBufferItem());
-        conf.set("buffer", BukkitSerialization.toBase64(bufferInv, 1));
+        conf.set("buffer", freezeItems(getBufferItem()));
         return conf;
     }
 
@@ -174,7 +174,15 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
     }
 
     private void setTickRate(int tickRate) {
-        this.tickRate = Math.max(tickRate, 5);
+        int newRate = Math.max(tickRate, 5);
+
+        if (newRate != this.tickRate) {
+            this.tickRate = newRate;
+
+            if (isPlaced()) {
+                LocationManager.getManager().updateTickRate(this);
+            }
+        }
     }
 
     @Override
@@ -322,7 +330,7 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
             Block b1 = b.getRelative(face);
             BaseSTBBlock stb = SensibleToolbox.getBlockAt(b1.getLocation());
 
-            if (stb instanceof STBInventoryHolder || VanillaInventoryUtils.isVanillaInventory(b1)) {
+            if (stb instanceof STBInventoryHolder || getNeighbourInventory(face).isPresent()) {
                 neighbours.add(face);
             }
         }
@@ -564,12 +572,16 @@ public class ItemRouter extends BaseSTBBlock implements STBInventoryHolder {
     }
 
     private void processModules(Inventory inv, int baseSlot) {
+        processModules(i -> inv.getItem(baseSlot + i));
+    }
+
+    private void processModules(@Nonnull IntFunction<ItemStack> modSlots) {
         clearModules();
 
         Map<ItemStack, Integer> mods = new LinkedHashMap<>();
 
         for (int i = 0; i < MOD_SLOT_COUNT; i++) {
-            ItemStack s = inv.getItem(baseSlot + i);
+            ItemStack s = modSlots.apply(i);
 
             if (s != null) {
                 if (!mods.containsKey(s)) {
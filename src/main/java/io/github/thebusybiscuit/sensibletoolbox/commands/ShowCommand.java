@@ -30,6 +30,7 @@ import io.github.bakedlibs.dough.items.ItemUtils;
 import io.github.thebusybiscuit.sensibletoolbox.api.SensibleToolbox;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBItem;
+import io.github.thebusybiscuit.sensibletoolbox.core.ProtectionCache;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
 import io.github.thebusybiscuit.sensibletoolbox.utils.BukkitSerialization;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
@@ -59,9 +60,14 @@ public class ShowCommand extends AbstractCommand {
                 pager.add(w.getName() + ": " + w.getLoadedChunks().length + " 个已加载区块");
             }
 
-            long avg = LocationManager.getManager().getAverageTimePerTick();
+            LocationManager mgr = LocationManager.getManager();
+            long avg = mgr.getAverageTimePerTick();
             double pct = avg / 200000.0;
             pager.add(avg + " ns/tick (" + pct + "%) 被用来处理 STB 方块");
+            pager.add(mgr.getOverrunCount() + " 次超出 tick 时间预算, " + mgr.getTickBacklog() + " 个方块顺延到下一 tick");
+
+            ProtectionCache protection = SensibleToolbox.getInstance().getProtectionCache();
+            pager.add("权限缓存: " + protection.getHits() + " 次命中, " + protection.getMisses() + " 次未命中, " + protection.size() + " 条记录");
         } else if (getBooleanOption("dump")) {
             dumpItemData(plugin, sender);
         } else {
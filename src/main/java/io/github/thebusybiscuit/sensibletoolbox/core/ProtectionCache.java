@@ -0,0 +1,219 @@
+package io.github.thebusybiscuit.sensibletoolbox.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import io.github.bakedlibs.dough.protection.Interaction;
+import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
+import io.github.thebusybiscuit.sensibletoolbox.api.SensibleToolbox;
+import io.github.thebusybiscuit.sensibletoolbox.core.storage.BlockPosition;
+import me.desht.dhutils.Debugger;
+
+/**
+ * Caches the protection plugins' answers to whether a block owner may interact with a
+ * block, for automated actions (item routers, machines and so on) which ask the same
+ * question over and over again. Answers expire after a configurable time, and the
+ * number of cached answers is bounded, with the oldest being dropped first.
+ * <p>
+ * Protection plugins don't generally announce when a region or claim changes, so the
+ * expiry time bounds how long a stale answer can be used for. The whole cache is also
+ * cleared whenever a plugin is enabled or disabled, since that may be a protection plugin
+ * coming or going, and a world's answers are dropped when the world unloads.
+ * <p>
+ * Only to be used from the main thread.
+ */
+public class ProtectionCache implements Listener {
+
+    public static final long DEFAULT_TTL_MS = 5000;
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // in insertion order, so the eldest entry is always the next one to expire
+    private final Map<Key, Decision> decisions = new LinkedHashMap<>(256, 0.75F, false) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Decision> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private long ttlNanos;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+
+    public ProtectionCache(@Nonnull SensibleToolboxPlugin plugin) {
+        setLimits(plugin.getConfig().getLong("protection_cache.ttl_ms", DEFAULT_TTL_MS), plugin.getConfig().getInt("protection_cache.max_entries", DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * Set how long answers are cached for, and how many are kept.
+     *
+     * @param ttlMillis
+     *            the time an answer is cached for, in milliseconds; 0 disables the cache
+     * @param maxEntries
+     *            the maximum number of cached answers
+     */
+    public void setLimits(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1000000L;
+        this.maxEntries = maxEntries;
+        invalidate();
+    }
+
+    /**
+     * Check if the given player may perform the given interaction with the given block.
+     *
+     * @param owner
+     *            the UUID of the player on whose behalf the interaction happens
+     * @param b
+     *            the block
+     * @param interaction
+     *            the interaction
+     * @return true if the interaction is allowed
+     */
+    public boolean hasPermission(@Nonnull UUID owner, @Nonnull Block b, @Nonnull Interaction interaction) {
+        if (ttlNanos <= 0 || maxEntries <= 0) {
+            misses++;
+            return SensibleToolbox.getProtectionManager().hasPermission(Bukkit.getOfflinePlayer(owner), b, interaction);
+        }
+
+        long now = System.nanoTime();
+        Key key = new Key(owner, b.getWorld().getUID(), BlockPosition.getBlockKey(b.getX(), b.getY(), b.getZ()), interaction);
+        Decision decision = decisions.get(key);
+
+        if (decision != null && now - decision.expiresAt < 0) {
+            hits++;
+            return decision.allowed;
+        }
+
+        misses++;
+        boolean allowed = SensibleToolbox.getProtectionManager().hasPermission(Bukkit.getOfflinePlayer(owner), b, interaction);
+
+        // re-insert rather than update, so that insertion order stays expiry order
+        decisions.remove(key);
+        decisions.put(key, new Decision(allowed, now + ttlNanos));
+        return allowed;
+    }
+
+    /**
+     * Forget all cached answers.
+     */
+    public void invalidate() {
+        decisions.clear();
+    }
+
+    /**
+     * Forget all cached answers for blocks in the given world.
+     *
+     * @param world
+     *            the world
+     */
+    public void invalidate(@Nonnull World world) {
+        UUID worldID = world.getUID();
+        Iterator<Key> iter = decisions.keySet().iterator();
+
+        while (iter.hasNext()) {
+            if (iter.next().worldID.equals(worldID)) {
+                iter.remove();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        Debugger.getInstance().debug("plugin " + event.getPlugin().getName() + " enabled, clearing protection cache");
+        invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        Debugger.getInstance().debug("plugin " + event.getPlugin().getName() + " disabled, clearing protection cache");
+        invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        invalidate(event.getWorld());
+    }
+
+    @Override
+    public String toString() {
+        return "ProtectionCache[" + decisions.size() + " entries, " + hits + " hits, " + misses + " misses]";
+    }
+
+    private static final class Key {
+
+        private final UUID owner;
+        private final UUID worldID;
+        private final long position;
+        private final Interaction interaction;
+
+        private Key(@Nonnull UUID owner, @Nonnull UUID worldID, long position, @Nonnull Interaction interaction) {
+            this.owner = owner;
+            this.worldID = worldID;
+            this.position = position;
+            this.interaction = interaction;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return position == other.position && interaction == other.interaction && owner.equals(other.owner) && worldID.equals(other.worldID);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = owner.hashCode();
+            result = 31 * result + worldID.hashCode();
+            result = 31 * result + Long.hashCode(position);
+            result = 31 * result + interaction.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Decision {
+
+        private final boolean allowed;
+        private final long expiresAt;
+
+        private Decision(boolean allowed, long expiresAt) {
+            this.allowed = allowed;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package io.github.thebusybiscuit.sensibletoolbox.core;
 
 import java.io.StringReader;
 import java.lang.reflect.Constructor;
-import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -108,11 +107,7 @@ public class STBItemRegistry implements ItemRegistry, Keyed {
             registerPermission(permissionPrefix, ItemAction.BREAK, id);
             registerPermission(permissionPrefix, ItemAction.INTERACT_BLOCK, id);
 
-            try {
-                LocationManager.getManager().loadDeferredBlocks(id);
-            } catch (SQLException e) {
-                SensibleToolboxPlugin.getInstance().getLogger().log(Level.SEVERE, e, () -> "There was a problem restoring blocks of type '" + id + "' from persisted storage");
-            }
+            LocationManager.getManager().loadDeferredBlocks(id);
         }
     }
 
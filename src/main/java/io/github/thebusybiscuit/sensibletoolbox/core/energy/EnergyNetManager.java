@@ -1,16 +1,22 @@
 package io.github.thebusybiscuit.sensibletoolbox.core.energy;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
@@ -19,21 +25,42 @@ import com.google.common.base.Joiner;
 import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
 import io.github.thebusybiscuit.sensibletoolbox.api.energy.ChargeableBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.energy.EnergyNet;
+import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBMachine;
+import io.github.thebusybiscuit.sensibletoolbox.core.storage.BlockPosition;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongHashSet;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongIntMap;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongObjectMap;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongStack;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
 import me.desht.dhutils.Debugger;
 
 public class EnergyNetManager {
 
     public static final long DEFAULT_TICK_RATE = 10;
+    // the number of nets below which a parallel solve isn't split up any further
+    private static final int SOLVE_BATCH_SIZE = 16;
     private long tickRate = DEFAULT_TICK_RATE;
+    // the pool which nets are solved on in parallel, or null to solve them one by one
+    private ForkJoinPool solverPool;
 
     private final Map<Integer, STBEnergyNet> allNets = new HashMap<>();
-    private final SensibleToolboxPlugin plugin;
+    // the net ID of every cable which is on a net, by world and packed block position
+    private final Map<UUID, LongIntMap> cableNets = new HashMap<>();
+    // the union-find parent of each net ID which has been merged into another net;
+    // cables keep the ID of the net they were added to, which is resolved through this
+    private final Map<Integer, Integer> mergedNets = new HashMap<>();
+    // positions in unloaded chunks where a cable scan had to stop, by world and chunk key;
+    // the scan is resumed from them when their chunk loads
+    private final Map<UUID, LongObjectMap<LongHashSet>> frontiers = new HashMap<>();
 
     public EnergyNetManager(@Nonnull SensibleToolboxPlugin plugin) {
-        this.plugin = plugin;
+        this(plugin.getConfig().getBoolean("energy.parallel_solver", false));
+    }
+
+    EnergyNetManager(boolean parallelSolver) {
+        setParallelSolver(parallelSolver);
     }
 
     public long getTickRate() {
@@ -44,6 +71,40 @@ public class EnergyNetManager {
         this.tickRate = tickRate;
     }
 
+    /**
+     * Choose whether nets are solved in parallel. In parallel mode, the charge of every
+     * net's machines is read at the start of the tick, all nets are solved at once on a
+     * pool of worker threads, and the results are applied on the main thread in net ID
+     * order. Machines are only ever accessed from the main thread.
+     * <p>
+     * The result differs from the serial solver only where nets share machines (or SCU
+     * relays share charge), since those nets don't see each other's changes within a tick.
+     *
+     * @param parallel
+     *            true to solve nets in parallel, false to solve them one by one
+     */
+    public void setParallelSolver(boolean parallel) {
+        if (parallel && solverPool == null) {
+            solverPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        } else if (!parallel && solverPool != null) {
+            solverPool.shutdown();
+            solverPool = null;
+        }
+
+        Debugger.getInstance().debug("energy net solver mode: " + (parallel ? "parallel" : "serial"));
+    }
+
+    public boolean isParallelSolver() {
+        return solverPool != null;
+    }
+
+    /**
+     * Stop the parallel solver's worker threads, if there are any.
+     */
+    public void shutdown() {
+        setParallelSolver(false);
+    }
+
     /**
      * Get the energy net this block is in, if any.
      *
@@ -53,8 +114,107 @@ public class EnergyNetManager {
      */
     @Nullable
     public STBEnergyNet getEnergyNet(@Nonnull Block block) {
-        Integer netId = (Integer) STBUtil.getMetadataValue(block, STBEnergyNet.STB_ENET_ID);
-        return netId == null ? null : allNets.get(netId);
+        return getEnergyNet(block.getWorld().getUID(), BlockPosition.getBlockKey(block.getX(), block.getY(), block.getZ()));
+    }
+
+    @Nullable
+    private STBEnergyNet getEnergyNet(@Nonnull UUID worldID, long pos) {
+        LongIntMap worldCables = cableNets.get(worldID);
+
+        if (worldCables == null) {
+            return null;
+        }
+
+        // net IDs start at 1, so 0 means no net
+        int netId = worldCables.get(pos, 0);
+        return netId == 0 ? null : allNets.get(findNetID(netId));
+    }
+
+    /**
+     * Record that the cable at the given position is on the given net. Only to be
+     * called by the net itself.
+     *
+     * @param worldID
+     *            the UUID of the cable's world
+     * @param pos
+     *            the packed block position
+     * @param netID
+     *            the net ID
+     */
+    void setCableNet(@Nonnull UUID worldID, long pos, int netID) {
+        cableNets.computeIfAbsent(worldID, k -> new LongIntMap()).put(pos, netID);
+    }
+
+    /**
+     * Record that the cable at the given position is no longer on any net. Only to
+     * be called by the net itself.
+     *
+     * @param worldID
+     *            the UUID of the cable's world
+     * @param pos
+     *            the packed block position
+     */
+    void clearCableNet(@Nonnull UUID worldID, long pos) {
+        LongIntMap worldCables = cableNets.get(worldID);
+
+        if (worldCables != null) {
+            worldCables.remove(pos);
+        }
+    }
+
+    /**
+     * Find the net which the given net ID now belongs to, following any merges.
+     *
+     * @param netID
+     *            a net ID, possibly of a net which has been merged into another
+     * @return the ID of the live net
+     */
+    private int findNetID(int netID) {
+        Integer parent = mergedNets.get(netID);
+
+        if (parent == null) {
+            return netID;
+        }
+
+        int root = findNetID(parent);
+
+        if (root != parent) {
+            // path compression
+            mergedNets.put(netID, root);
+        }
+
+        return root;
+    }
+
+    /**
+     * Merge the given nets into one. The net with the most cables absorbs the others,
+     * so that only the smaller nets' cables and machines need to move; the cables
+     * themselves aren't touched at all.
+     *
+     * @param netIds
+     *            the IDs of the (live) nets to merge
+     * @return the merged net
+     */
+    @Nonnull
+    private STBEnergyNet mergeNets(@Nonnull Set<Integer> netIds) {
+        STBEnergyNet target = null;
+
+        for (int netId : netIds) {
+            STBEnergyNet net = allNets.get(netId);
+
+            if (target == null || net.getCableCount() > target.getCableCount()) {
+                target = net;
+            }
+        }
+
+        for (int netId : netIds) {
+            if (netId != target.getNetID()) {
+                target.absorb(allNets.remove(netId));
+                mergedNets.put(netId, target.getNetID());
+            }
+        }
+
+        return target;
     }
 
     /**
@@ -71,41 +231,21 @@ public class EnergyNetManager {
             Debugger.getInstance().debug(2, "new cable " + cable + " has " + netIds.size() + " adjacent nets [" + Joiner.on(",").join(netIds) + "]");
         }
 
-        List<AdjacentMachine> adjacentMachines;
-
-        switch (netIds.size()) {
-            case 0:
-                // not connected to any net, start a new one IFF there is one or more adjacent machines
-                adjacentMachines = getAdjacentMachines(cable);
-                if (!adjacentMachines.isEmpty()) {
-                    STBEnergyNet newNet = STBEnergyNet.buildNet(cable, this);
-                    allNets.put(newNet.getNetID(), newNet);
-                    addConnectedCables(cable, newNet);
-                }
-                break;
-            case 1:
-                // connected to a single net; just add this cable to that net
-                Integer[] id = netIds.toArray(new Integer[1]);
-                STBEnergyNet net = allNets.get(id[0]);
-                net.addCable(cable);
-                // attach any adjacent machines
-                adjacentMachines = getAdjacentMachines(cable);
-                for (AdjacentMachine record : adjacentMachines) {
-                    net.addMachine(record.getMachine(), record.getDirection().getOppositeFace());
-                }
-                // and any connected cable which isn't part of a net
-                addConnectedCables(cable, net);
-                break;
-            default:
-                // connected to more than one different net!
-                // delete those nets, then re-scan and build a new single unified net
-                for (int netId : netIds) {
-                    deleteEnergyNet(netId);
-                }
+        if (netIds.isEmpty()) {
+            // not connected to any net, start a new one IFF there is one or more adjacent machines
+            if (!getAdjacentMachines(cable).isEmpty()) {
+                buildNet(cable);
+            }
 
-                STBEnergyNet newNet = STBEnergyNet.buildNet(cable, this);
-                allNets.put(newNet.getNetID(), newNet);
+            return;
         }
+
+        // connected to one or more nets; merge them if necessary, and add this cable to the result
+        STBEnergyNet net = netIds.size() == 1 ? allNets.get(netIds.iterator().next()) : mergeNets(netIds);
+        net.addCable(BlockPosition.getBlockKey(cable.getX(), cable.getY(), cable.getZ()));
+
+        // and attach any adjacent machines, and connected cable which isn't part of a net
+        extendNet(net, cable);
     }
 
     public void onCableRemoved(@Nonnull Block cable) {
@@ -118,55 +258,201 @@ public class EnergyNetManager {
 
         Debugger.getInstance().debug(2, "removing cable " + cable + " from enet #" + thisNet.getNetID());
 
-        // scan this cable's neighbours to see what it was attached to
-        final List<Block> attachedCables = new ArrayList<>();
-        final List<BaseSTBMachine> attachedMachines = new ArrayList<>();
+        // the block is still a cable at this point, but it won't be found in the net any more
+        thisNet.removeCable(BlockPosition.getBlockKey(cable.getX(), cable.getY(), cable.getZ()));
+
+        // scan this cable's neighbours to see what it was attached to; the net's own
+        // cable set is used, so nothing is read from the world
+        List<Long> attachedCables = new ArrayList<>();
+        boolean detached = false;
 
         for (BlockFace face : STBUtil.getDirectBlockFaces()) {
-            Block b = cable.getRelative(face);
+            int x = cable.getX() + face.getModX();
+            int y = cable.getY() + face.getModY();
+            int z = cable.getZ() + face.getModZ();
+            long pos = BlockPosition.getBlockKey(x, y, z);
 
-            if (STBUtil.isCable(b)) {
-                attachedCables.add(b);
+            if (thisNet.hasCable(pos)) {
+                attachedCables.add(pos);
             } else {
-                BaseSTBMachine machine = LocationManager.getManager().get(b.getLocation(), BaseSTBMachine.class);
+                BaseSTBMachine machine = getMachine(cable.getWorld(), x, y, z);
 
                 if (machine != null) {
-                    attachedMachines.add(machine);
+                    detached |= thisNet.detachMachineFace(machine, face.getOppositeFace());
                 }
             }
         }
 
-        if (attachedCables.size() == 1 && attachedMachines.isEmpty()) {
-            // simple case; cable attached to only one other cable - no need to delete the net
-            thisNet.removeCable(cable);
-        } else {
-            // delete the energy net for the removed cable; this will also detach any machines
+        if (detached && !attachedCables.isEmpty()) {
+            thisNet.findSourcesAndSinks();
+        }
+
+        if (attachedCables.isEmpty()) {
             deleteEnergyNet(thisNet.getNetID());
+        } else if (attachedCables.size() > 1) {
+            // those neighbours could still have another path to each other
+            splitNet(thisNet, cable.getWorld(), attachedCables);
+        }
+    }
 
-            if (attachedCables.isEmpty()) {
-                return;
-            }
-            // need a delayed task here, since the block for the cable being removed isn't
-            // actually updated to air yet...
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                // rebuild energy nets for the deleted cable's neighbours
-                for (Block b : attachedCables) {
-                    // those neighbours could have another path to each other
-                    EnergyNet net1 = getEnergyNet(b);
-
-                    if (net1 == null) {
-                        STBEnergyNet newNet1 = STBEnergyNet.buildNet(b, this);
-                        allNets.put(newNet1.getNetID(), newNet1);
+    /**
+     * A cable has been removed from the given net, and the given cables were its neighbours;
+     * check whether they are still connected, and if not, split the net up.
+     * <p>
+     * A search is run from each neighbour in turn, one cable at a time, following the
+     * net's own cables. Searches which meet are joined, since their cables are still
+     * connected; a search which runs out of cables before meeting the others has found
+     * a component which is now cut off, and that is split into a new net. The work done
+     * is therefore proportional to the size of the smaller components, and the largest
+     * one, which keeps the existing net, is never fully scanned.
+     *
+     * @param net
+     *            the net a cable was removed from
+     * @param world
+     *            the net's world
+     * @param starts
+     *            the positions of the cables which were next to the removed cable
+     */
+    private void splitNet(@Nonnull STBEnergyNet net, @Nonnull World world, @Nonnull List<Long> starts) {
+        int n = starts.size();
+        // a union-find over the searches, for those which have met
+        int[] parents = new int[n];
+        boolean[] finished = new boolean[n];
+        List<LongStack> pending = new ArrayList<>(n);
+        List<LongHashSet> found = new ArrayList<>(n);
+        LongObjectMap<Integer> owners = new LongObjectMap<>();
+
+        for (int i = 0; i < n; i++) {
+            long pos = starts.get(i);
+            parents[i] = i;
+            pending.add(new LongStack());
+            found.add(new LongHashSet());
+            pending.get(i).push(pos);
+            found.get(i).add(pos);
+            owners.put(pos, i);
+        }
+
+        int searching = n;
+
+        while (searching > 1) {
+            for (int i = 0; i < n && searching > 1; i++) {
+                if (parents[i] != i || finished[i]) {
+                    continue;
+                }
+
+                long pos = pending.get(i).pop();
+                int x = BlockPosition.getBlockX(pos);
+                int y = BlockPosition.getBlockY(pos);
+                int z = BlockPosition.getBlockZ(pos);
+
+                for (BlockFace face : STBUtil.getDirectBlockFaces()) {
+                    long pos2 = BlockPosition.getBlockKey(x + face.getModX(), y + face.getModY(), z + face.getModZ());
+
+                    if (!net.hasCable(pos2)) {
+                        continue;
+                    }
+
+                    Integer owner = owners.get(pos2);
+                    int current = findSearch(parents, i);
+
+                    if (owner == null) {
+                        owners.put(pos2, current);
+                        pending.get(current).push(pos2);
+                        found.get(current).add(pos2);
+                    } else {
+                        int other = findSearch(parents, owner);
+
+                        if (other != current) {
+                            // the searches have met; join the smaller one into the larger
+                            int big = found.get(current).size() >= found.get(other).size() ? current : other;
+                            int small = big == current ? other : current;
+                            parents[small] = big;
+                            pending.get(big).pushAll(pending.get(small));
+                            found.get(big).addAll(found.get(small));
+                            pending.get(small).clear();
+                            found.get(small).clear();
+                            searching--;
+                        }
                     }
                 }
-            });
+
+                int root = findSearch(parents, i);
+
+                if (searching > 1 && pending.get(root).isEmpty()) {
+                    // this component has been completely scanned without meeting any other
+                    finished[root] = true;
+                    searching--;
+                    splitOff(net, world, found.get(root));
+                }
+            }
+        }
+    }
+
+    private static int findSearch(@Nonnull int[] parents, int i) {
+        while (parents[i] != i) {
+            i = parents[i];
+        }
+
+        return i;
+    }
+
+    /**
+     * Move the given cables, and any machines attached to them, from the given net into
+     * a new net of their own.
+     *
+     * @param net
+     *            the net being split
+     * @param world
+     *            the net's world
+     * @param cables
+     *            the positions of the cables of the component being split off
+     */
+    private void splitOff(@Nonnull STBEnergyNet net, @Nonnull World world, @Nonnull LongHashSet cables) {
+        STBEnergyNet newNet = STBEnergyNet.createNet(world, this);
+        // machines are detached from the old net in one go, so that its sources
+        // and sinks only need to be found again once
+        List<AdjacentMachine> machines = new ArrayList<>();
+
+        for (long pos : cables.toArray()) {
+            int x = BlockPosition.getBlockX(pos);
+            int y = BlockPosition.getBlockY(pos);
+            int z = BlockPosition.getBlockZ(pos);
+
+            net.removeCable(pos);
+            newNet.addCable(pos);
+
+            for (BlockFace face : STBUtil.getDirectBlockFaces()) {
+                BaseSTBMachine machine = getMachine(world, x + face.getModX(), y + face.getModY(), z + face.getModZ());
+
+                if (machine != null && net.detachMachineFace(machine, face.getOppositeFace())) {
+                    machines.add(new AdjacentMachine(machine, face.getOppositeFace()));
+                }
+            }
+        }
+
+        if (!machines.isEmpty()) {
+            net.findSourcesAndSinks();
         }
+
+        newNet.addMachines(machines);
+        allNets.put(newNet.getNetID(), newNet);
+        Debugger.getInstance().debug("split " + newNet.getCableCount() + " cables off enet #" + net.getNetID() + " into enet #" + newNet.getNetID());
     }
 
     public void onMachinePlaced(ChargeableBlock machine) {
         Block b = machine.getLocation().getBlock();
         // scan adjacent blocks for cables
         for (BlockFace face : STBUtil.getDirectBlockFaces()) {
+            int x = b.getX() + face.getModX();
+            int y = b.getY() + face.getModY();
+            int z = b.getZ() + face.getModZ();
+
+            if (!b.getWorld().isChunkLoaded(x >> 4, z >> 4)) {
+                // picked up from the cable's side when that chunk loads
+                addFrontier(b.getWorld(), BlockPosition.getBlockKey(x, y, z));
+                continue;
+            }
+
             Block cable = b.getRelative(face);
 
             if (STBUtil.isCable(cable)) {
@@ -174,13 +460,11 @@ public class EnergyNetManager {
 
                 if (net == null) {
                     // cable with no net - create one!
-                    STBEnergyNet newNet = STBEnergyNet.buildNet(cable, this);
-                    newNet.addMachine(machine, face);
-                    allNets.put(newNet.getNetID(), newNet);
-                } else {
-                    // cable on a net - add machine to it
-                    net.addMachine(machine, face);
+                    net = buildNet(cable);
                 }
+
+                // cable on a net - add machine to it
+                net.addMachine(machine, face);
             }
         }
     }
@@ -192,27 +476,164 @@ public class EnergyNetManager {
     }
 
     /**
-     * Recursively scan for any cable which is not currently part of an energy net,
-     * and add it to the given net.
+     * The given chunk has just been loaded; resume any cable scans which stopped at its edge.
+     *
+     * @param chunk
+     *            the chunk that has been loaded
+     */
+    public void onChunkLoad(@Nonnull Chunk chunk) {
+        World w = chunk.getWorld();
+        LongObjectMap<LongHashSet> worldFrontiers = frontiers.get(w.getUID());
+        LongHashSet positions = worldFrontiers == null ? null : worldFrontiers.remove(BlockPosition.getChunkKey(chunk.getX(), chunk.getZ()));
+
+        if (positions == null) {
+            return;
+        }
+
+        Debugger.getInstance().debug(2, "resuming cable scans at " + positions.size() + " positions in chunk " + chunk.getX() + "," + chunk.getZ());
+
+        for (long pos : positions.toArray()) {
+            Block b = w.getBlockAt(BlockPosition.getBlockX(pos), BlockPosition.getBlockY(pos), BlockPosition.getBlockZ(pos));
+
+            if (!STBUtil.isCable(b)) {
+                // any machine here will attach itself when it's registered
+                continue;
+            }
+
+            // this cable joins whatever nets it touches, which may mean merging them
+            Set<Integer> netIds = getAdjacentNets(b);
+            STBEnergyNet own = getEnergyNet(b);
+
+            if (own != null) {
+                netIds.add(own.getNetID());
+            }
+
+            if (!netIds.isEmpty()) {
+                STBEnergyNet net = netIds.size() == 1 ? allNets.get(netIds.iterator().next()) : mergeNets(netIds);
+
+                if (own == null) {
+                    net.addCable(pos);
+                }
+
+                extendNet(net, b);
+            } else if (!getAdjacentMachines(b).isEmpty()) {
+                buildNet(b);
+            }
+        }
+    }
+
+    /**
+     * The given world has been unloaded; forget about its cables, and any cable scans waiting
+     * for its chunks.
+     *
+     * @param world
+     *            the world that has been unloaded
+     */
+    public void onWorldUnload(@Nonnull World world) {
+        frontiers.remove(world.getUID());
+        cableNets.remove(world.getUID());
+    }
+
+    private void addFrontier(@Nonnull World w, long pos) {
+        long chunkKey = BlockPosition.getChunkKey(BlockPosition.getBlockX(pos) >> 4, BlockPosition.getBlockZ(pos) >> 4);
+        LongObjectMap<LongHashSet> worldFrontiers = frontiers.computeIfAbsent(w.getUID(), k -> new LongObjectMap<>());
+        LongHashSet positions = worldFrontiers.get(chunkKey);
+
+        if (positions == null) {
+            positions = new LongHashSet();
+            worldFrontiers.put(chunkKey, positions);
+        }
+
+        positions.add(pos);
+    }
+
+    /**
+     * Build a new net from the cable at the given block, and everything connected to it.
+     *
+     * @param cable
+     *            the cable to start from
+     * @return the new net
+     */
+    @Nonnull
+    private STBEnergyNet buildNet(@Nonnull Block cable) {
+        STBEnergyNet net = STBEnergyNet.createNet(cable.getWorld(), this);
+        net.addCable(BlockPosition.getBlockKey(cable.getX(), cable.getY(), cable.getZ()));
+        extendNet(net, cable);
+        allNets.put(net.getNetID(), net);
+        Debugger.getInstance().debug("built new net #" + net.getNetID() + " with " + net.getCableCount() + " cables & " + net.getMachineCount() + " machines");
+        return net;
+    }
+
+    /**
+     * Scan outwards from the given cable (which must already be in the given net) for any
+     * cable which is not currently part of an energy net, and add it to the net, attaching
+     * any machines found next to the net's cables on the way. The scan uses an explicit
+     * stack of packed positions, and adds at most {@link STBEnergyNet#MAX_BLOCKS_IN_CABLE}
+     * cables.
+     * <p>
+     * Chunks are never loaded by the scan; positions in unloaded chunks are recorded as
+     * frontiers instead, and the scan is resumed from them when their chunk loads.
      *
-     * @param start
-     *            block to scan from
      * @param net
      *            net to add cabling to
+     * @param start
+     *            cable to scan from
      */
-    private void addConnectedCables(Block start, STBEnergyNet net) {
-        for (BlockFace face : STBUtil.getDirectBlockFaces()) {
-            Block b = start.getRelative(face);
+    private void extendNet(@Nonnull STBEnergyNet net, @Nonnull Block start) {
+        World w = start.getWorld();
+        LongStack pending = new LongStack();
+        List<AdjacentMachine> machines = new ArrayList<>();
+        int added = 0;
+
+        pending.push(BlockPosition.getBlockKey(start.getX(), start.getY(), start.getZ()));
+
+        while (!pending.isEmpty()) {
+            long pos = pending.pop();
+            int x = BlockPosition.getBlockX(pos);
+            int y = BlockPosition.getBlockY(pos);
+            int z = BlockPosition.getBlockZ(pos);
+
+            for (BlockFace face : STBUtil.getDirectBlockFaces()) {
+                int x2 = x + face.getModX();
+                int y2 = y + face.getModY();
+                int z2 = z + face.getModZ();
+                long pos2 = BlockPosition.getBlockKey(x2, y2, z2);
+
+                if (net.hasCable(pos2)) {
+                    continue;
+                }
+
+                if (!w.isChunkLoaded(x2 >> 4, z2 >> 4)) {
+                    addFrontier(w, pos2);
+                    continue;
+                }
+
+                Block b = w.getBlockAt(x2, y2, z2);
 
-            if (STBUtil.isCable(b)) {
-                EnergyNet net2 = getEnergyNet(b);
+                if (STBUtil.isCable(b)) {
+                    if (added < STBEnergyNet.MAX_BLOCKS_IN_CABLE && getEnergyNet(w.getUID(), pos2) == null) {
+                        net.addCable(pos2);
+                        pending.push(pos2);
+                        added++;
+                    }
+                } else {
+                    BaseSTBMachine machine = getMachine(w, x2, y2, z2);
 
-                if (net2 == null) {
-                    net.addCable(b);
-                    addConnectedCables(b, net);
+                    if (machine != null) {
+                        machines.add(new AdjacentMachine(machine, face.getOppositeFace()));
+                    }
                 }
             }
         }
+
+        net.addMachines(machines);
+    }
+
+    @Nullable
+    private static BaseSTBMachine getMachine(@Nonnull World w, int x, int y, int z) {
+        // this only looks in STB's own index, so it's fine for unloaded chunks
+        BaseSTBBlock stb = LocationManager.getManager().get(w, x, y, z);
+        return stb instanceof BaseSTBMachine ? (BaseSTBMachine) stb : null;
     }
 
     @Nonnull
@@ -220,8 +641,7 @@ public class EnergyNetManager {
         final List<AdjacentMachine> attachedMachines = new ArrayList<>();
 
         for (BlockFace face : STBUtil.getDirectBlockFaces()) {
-            Block b = cable.getRelative(face);
-            BaseSTBMachine machine = LocationManager.getManager().get(b.getLocation(), BaseSTBMachine.class);
+            BaseSTBMachine machine = getMachine(cable.getWorld(), cable.getX() + face.getModX(), cable.getY() + face.getModY(), cable.getZ() + face.getModZ());
 
             if (machine != null) {
                 attachedMachines.add(new AdjacentMachine(machine, face));
@@ -241,9 +661,11 @@ public class EnergyNetManager {
     @Nonnull
     private Set<Integer> getAdjacentNets(@Nonnull Block startBlock) {
         Set<Integer> res = new HashSet<>();
+        UUID worldID = startBlock.getWorld().getUID();
 
         for (BlockFace face : STBUtil.getDirectBlockFaces()) {
-            EnergyNet net = getEnergyNet(startBlock.getRelative(face));
+            long pos = BlockPosition.getBlockKey(startBlock.getX() + face.getModX(), startBlock.getY() + face.getModY(), startBlock.getZ() + face.getModZ());
+            EnergyNet net = getEnergyNet(worldID, pos);
 
             if (net != null) {
                 res.add(net.getNetID());
@@ -257,14 +679,76 @@ public class EnergyNetManager {
         STBEnergyNet enet = allNets.get(netID);
 
         if (enet != null) {
+            // none of the merged nets' IDs are in use once the net's cables are gone
+            for (int mergedID : enet.getMergedIDs()) {
+                mergedNets.remove(mergedID);
+            }
+
             enet.shutdown();
             allNets.remove(netID);
         }
     }
 
     public void tick() {
-        for (STBEnergyNet net : allNets.values()) {
-            net.tick();
+        tick(allNets.values());
+    }
+
+    /**
+     * Tick the given nets, one by one or in parallel depending on the solver mode.
+     *
+     * @param netsToTick
+     *            the nets to tick
+     */
+    void tick(@Nonnull Collection<STBEnergyNet> netsToTick) {
+        if (solverPool == null || netsToTick.size() < 2) {
+            for (STBEnergyNet net : netsToTick) {
+                net.tick();
+            }
+
+            return;
+        }
+
+        List<STBEnergyNet> nets = new ArrayList<>(netsToTick);
+        nets.sort(Comparator.comparingInt(STBEnergyNet::getNetID));
+
+        for (STBEnergyNet net : nets) {
+            net.snapshot();
+        }
+
+        solverPool.invoke(new SolveTask(nets, 0, nets.size()));
+
+        for (STBEnergyNet net : nets) {
+            net.apply();
+        }
+    }
+
+    /**
+     * Solves a range of nets, splitting it in half until it's small enough to solve directly.
+     */
+    private static final class SolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<STBEnergyNet> nets;
+        private final int from;
+        private final int to;
+
+        SolveTask(@Nonnull List<STBEnergyNet> nets, int from, int to) {
+            this.nets = nets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SOLVE_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    nets.get(i).solve();
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveTask(nets, from, mid), new SolveTask(nets, mid, to));
+            }
         }
     }
 }
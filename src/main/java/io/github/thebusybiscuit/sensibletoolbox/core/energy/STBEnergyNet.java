@@ -4,45 +4,60 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 
-import org.bukkit.Bukkit;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.metadata.FixedMetadataValue;
 
-import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
 import io.github.thebusybiscuit.sensibletoolbox.api.energy.ChargeableBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.energy.EnergyNet;
-import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBMachine;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.BlockPosition;
-import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
-import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongHashSet;
 import me.desht.dhutils.Debugger;
 
 public class STBEnergyNet implements EnergyNet {
 
+    /**
+     * The metadata key which cables used to carry their net ID under.
+     *
+     * @deprecated cables no longer carry any metadata; use {@link EnergyNetManager#getEnergyNet(org.bukkit.block.Block)}
+     */
+    @Deprecated
     public static final String STB_ENET_ID = "STB_ENet_ID";
-    public static final int MAX_BLOCKS_IN_CABLE = 512;
+    public static final int MAX_BLOCKS_IN_CABLE = 4096;
     private static int freeID = 1;
 
     private final int netID;
-    private final String worldName;
+    private final UUID worldID;
     private double totalDemand;
     private double totalSupply;
 
     private final EnergyNetManager enetManager;
-    private final List<BlockPosition> cables = new ArrayList<>();
+    // the packed positions of this net's cables, see BlockPosition#getBlockKey()
+    private final LongHashSet cables = new LongHashSet();
+    // the IDs of the nets which have been merged into this one, see EnergyNetManager#findNetID()
+    private final List<Integer> mergedIDs = new ArrayList<>();
     private final Set<ChargeableBlock> machines = new HashSet<>();
     private final Set<ChargeableBlock> energySinks = new HashSet<>();
     private final Set<ChargeableBlock> energySources = new HashSet<>();
 
+    // the sources and sinks as parallel arrays, sources first, rebuilt by findSourcesAndSinks();
+    // a machine's maximum charge never changes, but its charge and charge rate are read every tick
+    private ChargeableBlock[] members = new ChargeableBlock[0];
+    private int sourceCount;
+    private int[] maxCharges = new int[0];
+    // the members' charges and charge rates at the start of this tick, see snapshot()
+    private double[] charges = new double[0];
+    private double[] rates = new double[0];
+    // the energy each member can supply or take this tick
+    private double[] flows = new double[0];
+
     @ParametersAreNonnullByDefault
-    private STBEnergyNet(String worldName, EnergyNetManager manager) {
-        this.worldName = worldName;
+    private STBEnergyNet(UUID worldID, EnergyNetManager manager) {
+        this.worldID = worldID;
         this.netID = getNextFreeID();
         this.enetManager = manager;
     }
@@ -52,53 +67,13 @@ public class STBEnergyNet implements EnergyNet {
     }
 
     @Nonnull
-    static STBEnergyNet buildNet(@Nonnull Block b, @Nonnull EnergyNetManager manager) {
-        STBEnergyNet enet = new STBEnergyNet(b.getWorld().getName(), manager);
-
-        Set<Object> blocks = new HashSet<>();
-        recursiveScan(b, blocks, BlockFace.SELF);
-
-        for (Object o : blocks) {
-            if (o instanceof Block) {
-                enet.addCable((Block) o);
-            } else if (o instanceof AdjacentMachine) {
-                AdjacentMachine rec = (AdjacentMachine) o;
-                enet.addMachine(rec.getMachine(), rec.getDirection());
-            }
-        }
-
-        enet.findSourcesAndSinks();
-        Debugger.getInstance().debug("built new net #" + enet.getNetID() + " with " + enet.cables.size() + " cables & " + enet.machines.size() + " machines");
-        return enet;
+    static STBEnergyNet createNet(@Nonnull World world, @Nonnull EnergyNetManager manager) {
+        return createNet(world.getUID(), manager);
     }
 
-    /**
-     * Recursively scan blocks attached to this block for cables and machines. Machines are added to the
-     * list of discovered blocks, but scanning stops where a machine is encountered.
-     *
-     * @param b
-     *            the block being checked
-     * @param discovered
-     *            set of discovered blocks so far
-     */
-    private static void recursiveScan(Block b, Set<Object> discovered, BlockFace fromDir) {
-        if (discovered.size() > MAX_BLOCKS_IN_CABLE || discovered.contains(b)) {
-            return;
-        }
-
-        if (!STBUtil.isCable(b)) {
-            BaseSTBMachine machine = LocationManager.getManager().get(b.getLocation(), BaseSTBMachine.class);
-
-            if (machine != null) {
-                discovered.add(new AdjacentMachine(machine, fromDir));
-            }
-        } else {
-            discovered.add(b);
-
-            for (BlockFace face : STBUtil.getDirectBlockFaces()) {
-                recursiveScan(b.getRelative(face), discovered, face.getOppositeFace());
-            }
-        }
+    @Nonnull
+    static STBEnergyNet createNet(@Nonnull UUID worldID, @Nonnull EnergyNetManager manager) {
+        return new STBEnergyNet(worldID, manager);
     }
 
     /**
@@ -118,6 +93,29 @@ public class STBEnergyNet implements EnergyNet {
                 }
             }
         }
+
+        int n = energySources.size() + energySinks.size();
+        members = new ChargeableBlock[n];
+        maxCharges = new int[n];
+        charges = new double[n];
+        rates = new double[n];
+        flows = new double[n];
+        sourceCount = 0;
+
+        for (ChargeableBlock machine : energySources) {
+            members[sourceCount++] = machine;
+        }
+
+        int i = sourceCount;
+
+        for (ChargeableBlock machine : energySinks) {
+            members[i++] = machine;
+        }
+
+        for (i = 0; i < n; i++) {
+            maxCharges[i] = members[i].getMaxCharge();
+        }
+
         Debugger.getInstance().debug("Energy net #" + getNetID() + ": found " + energySources.size() + " sources and " + energySinks.size() + " sinks");
     }
 
@@ -127,12 +125,100 @@ public class STBEnergyNet implements EnergyNet {
     }
 
     void addMachine(ChargeableBlock machine, BlockFace face) {
+        attachMachine(machine, face);
+        findSourcesAndSinks();
+    }
+
+    void addMachines(List<AdjacentMachine> adjacentMachines) {
+        if (!adjacentMachines.isEmpty()) {
+            for (AdjacentMachine rec : adjacentMachines) {
+                attachMachine(rec.getMachine(), rec.getDirection());
+            }
+
+            findSourcesAndSinks();
+        }
+    }
+
+    private void attachMachine(ChargeableBlock machine, BlockFace face) {
         machine.attachToEnergyNet(this, face);
         machines.add(machine);
-        findSourcesAndSinks();
         Debugger.getInstance().debug("Enet #" + getNetID() + ": added machine " + machine + " on face " + face);
     }
 
+    /**
+     * Detach the given machine from this net on the given face only; it stays on this
+     * net if it's also attached on any other face. The net's sources and sinks are not
+     * updated, so that several machines can be detached in one go; the caller must call
+     * {@link #findSourcesAndSinks()} once it has finished detaching machines.
+     *
+     * @param machine
+     *            the machine
+     * @param face
+     *            the face of the machine which is no longer connected
+     * @return true if the machine was attached to this net on that face
+     */
+    boolean detachMachineFace(ChargeableBlock machine, BlockFace face) {
+        List<BlockFace> faces = new ArrayList<>(machine.getFacesForNet(this));
+
+        if (!faces.remove(face)) {
+            return false;
+        }
+
+        // there's no way to detach a single face, so re-attach the remaining ones
+        machine.detachFromEnergyNet(this);
+
+        for (BlockFace f : faces) {
+            machine.attachToEnergyNet(this, f);
+        }
+
+        if (faces.isEmpty()) {
+            machines.remove(machine);
+        }
+
+        Debugger.getInstance().debug("Enet #" + getNetID() + ": removed machine " + machine + " on face " + face);
+        return true;
+    }
+
+    /**
+     * Take over all the cables and machines of the given net, which is left empty.
+     * The other net's cables stay indexed under its net ID, which the
+     * {@link EnergyNetManager} maps to this net from now on.
+     *
+     * @param other
+     *            the net to merge into this one
+     */
+    void absorb(STBEnergyNet other) {
+        cables.addAll(other.cables);
+        mergedIDs.add(other.getNetID());
+        mergedIDs.addAll(other.mergedIDs);
+
+        for (ChargeableBlock machine : other.machines) {
+            List<BlockFace> faces = machine.getFacesForNet(other);
+            machine.detachFromEnergyNet(other);
+
+            for (BlockFace face : faces) {
+                attachMachine(machine, face);
+            }
+        }
+
+        other.cables.clear();
+        other.mergedIDs.clear();
+        other.machines.clear();
+        other.findSourcesAndSinks();
+        findSourcesAndSinks();
+        Debugger.getInstance().debug("Enet #" + getNetID() + ": merged in enet #" + other.getNetID() + ", now " + cables.size() + " cables & " + machines.size() + " machines");
+    }
+
+    /**
+     * Get the IDs of the nets which have been merged into this one.
+     *
+     * @return a list of net IDs
+     */
+    @Nonnull
+    List<Integer> getMergedIDs() {
+        return mergedIDs;
+    }
+
     void removeMachine(ChargeableBlock machine) {
         machine.detachFromEnergyNet(this);
         machines.remove(machine);
@@ -140,28 +226,52 @@ public class STBEnergyNet implements EnergyNet {
         Debugger.getInstance().debug("Enet #" + getNetID() + ": removed machine " + machine);
     }
 
-    void addCable(Block cable) {
-        cable.setMetadata(STB_ENET_ID, new FixedMetadataValue(SensibleToolboxPlugin.getInstance(), getNetID()));
-        cables.add(new BlockPosition(cable.getLocation()));
-        Debugger.getInstance().debug("Enet #" + getNetID() + ": added cable @ " + cable);
+    /**
+     * Add the cable at the given position to this net.
+     *
+     * @param pos
+     *            the packed block position
+     */
+    void addCable(long pos) {
+        cables.add(pos);
+        enetManager.setCableNet(worldID, pos, getNetID());
+        Debugger.getInstance().debug(2, "Enet #" + getNetID() + ": added cable @ " + formatPosition(pos));
     }
 
-    void removeCable(Block cable) {
-        cable.removeMetadata(STB_ENET_ID, SensibleToolboxPlugin.getInstance());
-        cables.remove(new BlockPosition(cable.getLocation()));
-        Debugger.getInstance().debug("Enet #" + getNetID() + ": removed cable @ " + cable);
+    /**
+     * Remove the cable at the given position from this net.
+     *
+     * @param pos
+     *            the packed block position
+     */
+    void removeCable(long pos) {
+        cables.remove(pos);
+        enetManager.clearCableNet(worldID, pos);
+        Debugger.getInstance().debug(2, "Enet #" + getNetID() + ": removed cable @ " + formatPosition(pos));
     }
 
-    public void shutdown() {
-        World w = Bukkit.getWorld(worldName);
+    @Nonnull
+    private static String formatPosition(long pos) {
+        return BlockPosition.getBlockX(pos) + "," + BlockPosition.getBlockY(pos) + "," + BlockPosition.getBlockZ(pos);
+    }
 
-        if (w != null) {
-            for (BlockPosition pos : cables) {
-                Block b = w.getBlockAt(pos.getX(), pos.getY(), pos.getZ());
-                b.removeMetadata(STB_ENET_ID, SensibleToolboxPlugin.getInstance());
-            }
-        }
+    /**
+     * Check if this net has a cable at the given position.
+     *
+     * @param pos
+     *            the packed block position
+     * @return true if there is a cable of this net there
+     */
+    boolean hasCable(long pos) {
+        return cables.contains(pos);
+    }
 
+    int getMachineCount() {
+        return machines.size();
+    }
+
+    public void shutdown() {
+        cables.forEach(pos -> enetManager.clearCableNet(worldID, pos));
         cables.clear();
 
         for (ChargeableBlock machine : machines) {
@@ -169,6 +279,10 @@ public class STBEnergyNet implements EnergyNet {
         }
 
         machines.clear();
+        energySources.clear();
+        energySinks.clear();
+        members = new ChargeableBlock[0];
+        sourceCount = 0;
         Debugger.getInstance().debug("Enet #" + getNetID() + " shutdown complete");
     }
 
@@ -208,51 +322,81 @@ public class STBEnergyNet implements EnergyNet {
     }
 
     void tick() {
-        totalDemand = totalSupply = 0;
+        snapshot();
+        solve();
+        apply();
+    }
 
-        long tickRate = enetManager.getTickRate();
+    /**
+     * Read the current charge and charge rate of every member. Must be called from
+     * the main thread.
+     */
+    void snapshot() {
+        double tickRate = enetManager.getTickRate();
 
-        for (ChargeableBlock machine : energySources) {
-            if (machine.getCharge() > 0) {
-                totalSupply += Math.min(machine.getCharge(), (double) machine.getChargeRate() * tickRate);
-            }
+        for (int i = 0; i < members.length; i++) {
+            charges[i] = members[i].getCharge();
+            rates[i] = members[i].getChargeRate() * tickRate;
         }
+    }
 
-        for (ChargeableBlock machine : energySinks) {
-            if (machine.getCharge() < machine.getMaxCharge()) {
-                double needed = machine.getMaxCharge() - machine.getCharge();
-                needed = Math.min(needed, (double) machine.getChargeRate() * tickRate);
-                totalDemand += needed;
-            }
+    /**
+     * Work out how much energy each member supplies or takes this tick, from the last
+     * {@link #snapshot()}. This only touches the net's own arrays, so nets can be solved
+     * on any thread, and in parallel with each other.
+     */
+    void solve() {
+        totalDemand = totalSupply = 0;
+
+        for (int i = 0; i < sourceCount; i++) {
+            flows[i] = charges[i] > 0 ? Math.min(charges[i], rates[i]) : 0;
+            totalSupply += flows[i];
         }
 
+        for (int i = sourceCount; i < members.length; i++) {
+            double space = maxCharges[i] - charges[i];
+            flows[i] = space > 0 ? Math.min(space, rates[i]) : 0;
+            totalDemand += flows[i];
+        }
+    }
+
+    /**
+     * Move the energy worked out by the last {@link #solve()} from this net's sources
+     * to its sinks. Must be called from the main thread.
+     */
+    void apply() {
         if (totalDemand <= 0 || totalSupply <= 0) {
             return;
         }
 
         double ratio = totalDemand / totalSupply;
-
-        if (ratio <= 1.0) {
-            // there's enough power to supply all sinks
-            for (ChargeableBlock source : energySources) {
-                double toTake = Math.min(source.getCharge(), (double) source.getChargeRate() * tickRate);
-                source.setCharge(source.getCharge() - toTake * ratio);
+        // if there's enough power to supply all sinks, sources only give up what's needed;
+        // otherwise (more demand than supply!) sinks get a share of what's available
+        double sourceScale = ratio <= 1.0 ? ratio : 1.0;
+        double sinkScale = ratio <= 1.0 ? 1.0 : 1.0 / ratio;
+        double planned = totalSupply * sourceScale;
+        double taken = 0;
+
+        // only touch members whose charge actually changes, since setting a machine's
+        // charge also updates its GUI, labels and saved state; the charge is re-read,
+        // since members can share it (e.g. linked SCU relays) or be on several nets
+        for (int i = 0; i < sourceCount; i++) {
+            if (flows[i] > 0) {
+                double charge = members[i].getCharge();
+                double toTake = Math.min(charge, flows[i] * sourceScale);
+                members[i].setCharge(charge - toTake);
+                taken += toTake;
             }
+        }
 
-            for (ChargeableBlock sink : energySinks) {
-                double toGive = Math.min(sink.getMaxCharge() - sink.getCharge(), (double) sink.getChargeRate() * tickRate);
-                sink.setCharge(sink.getCharge() + toGive);
-            }
-        } else {
-            // more demand than supply!
-            for (ChargeableBlock source : energySources) {
-                double toTake = Math.min(source.getCharge(), (double) source.getChargeRate() * tickRate);
-                source.setCharge(source.getCharge() - toTake);
-            }
+        if (taken < planned) {
+            // a source had less left than when the net was solved, so the sinks share less
+            sinkScale *= taken / planned;
+        }
 
-            for (ChargeableBlock sink : energySinks) {
-                double toGive = Math.min(sink.getMaxCharge() - sink.getCharge(), (double) sink.getChargeRate() * tickRate);
-                sink.setCharge(sink.getCharge() + toGive / ratio);
+        for (int i = sourceCount; i < members.length; i++) {
+            if (flows[i] > 0) {
+                members[i].setCharge(members[i].getCharge() + flows[i] * sinkScale);
             }
         }
     }
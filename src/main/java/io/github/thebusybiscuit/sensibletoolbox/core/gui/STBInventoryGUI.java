@@ -33,6 +33,7 @@ import io.github.thebusybiscuit.sensibletoolbox.api.gui.gadgets.MonitorGadget;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBItem;
 import io.github.thebusybiscuit.sensibletoolbox.utils.BukkitSerialization;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
 import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
 import io.github.thebusybiscuit.sensibletoolbox.utils.IntRange;
 
@@ -411,6 +412,15 @@ public class STBInventoryGUI implements InventoryGUI {
         }
     }
 
+    @Override
+    public void thawSlots(ItemSnapshot frozen, int... slots) {
+        if (frozen != null) {
+            for (int i = 0; i < slots.length; i++) {
+                inventory.setItem(slots[i], frozen.getItem(i));
+            }
+        }
+    }
+
     @Override
     public void ejectItems(int... slots) {
         Location l = getOwningBlock().getLocation();
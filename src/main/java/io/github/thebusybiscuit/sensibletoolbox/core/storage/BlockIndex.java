@@ -0,0 +1,238 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+
+import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongObjectMap;
+import me.desht.dhutils.blocks.RelativePosition;
+
+/**
+ * Indexes the loaded STB blocks of a single world by packed block position (see
+ * {@link BlockPosition#getBlockKey(int, int, int)}). Every position which a block
+ * occupies is indexed, including the auxiliary positions of multi-block structures,
+ * so that finding the block at any position is a single hash lookup. Blocks are also
+ * grouped by the chunk containing their base block, so the blocks of a chunk can be
+ * listed without scanning the whole world.
+ * <p>
+ * Since almost all positions which get looked up (e.g. by physics events) are not
+ * STB blocks, the index also counts the occupied positions in each 16x16x16 chunk
+ * section, for each chunk with any. A zero count proves that a section is empty, so
+ * most lookups are rejected without hashing the position itself.
+ *
+ * @see LocationManager
+ */
+final class BlockIndex {
+
+    // the number of sections in a chunk which a packed position can address (12 bits of Y)
+    private static final int SECTIONS = 256;
+
+    // every occupied position, mapped to the block occupying it
+    private final LongObjectMap<BaseSTBBlock> positions = new LongObjectMap<>();
+    // the blocks themselves, by the position of their base block
+    private final LongObjectMap<BaseSTBBlock> blocks = new LongObjectMap<>();
+    // the blocks by the chunk containing their base block (see BlockPosition#getChunkKey)
+    private final LongObjectMap<List<BaseSTBBlock>> chunks = new LongObjectMap<>();
+    // the number of occupied positions in each section, by the chunk containing the positions;
+    // the extra last element is the chunk's total, and chunks with none are dropped
+    private final LongObjectMap<int[]> sectionCounts = new LongObjectMap<>();
+
+    private static int getSection(int y) {
+        // sections -128 to 127, wrapped around into the array
+        return (y >> 4) & (SECTIONS - 1);
+    }
+
+    /**
+     * Add the given block at the given location. The block's facing must already
+     * be set, since that determines where any auxiliary blocks are.
+     *
+     * @param stb
+     *            the block
+     * @param l
+     *            the location of its base block
+     */
+    void add(@Nonnull BaseSTBBlock stb, @Nonnull Location l) {
+        long key = BlockPosition.getBlockKey(l);
+
+        BaseSTBBlock old = blocks.put(key, stb);
+        List<BaseSTBBlock> chunkBlocks = chunks.get(getChunkKey(l));
+
+        if (chunkBlocks == null) {
+            chunkBlocks = new ArrayList<>();
+            chunks.put(getChunkKey(l), chunkBlocks);
+        } else if (old != null) {
+            removeFromList(chunkBlocks, old);
+        }
+
+        chunkBlocks.add(stb);
+        addPosition(key, stb);
+
+        for (RelativePosition pos : stb.getBlockStructure()) {
+            Block aux = stb.getAuxiliaryBlock(l, pos);
+            addPosition(BlockPosition.getBlockKey(aux.getX(), aux.getY(), aux.getZ()), stb);
+        }
+    }
+
+    private void addPosition(long key, @Nonnull BaseSTBBlock stb) {
+        if (positions.put(key, stb) == null) {
+            long chunkKey = BlockPosition.getChunkKey(BlockPosition.getBlockX(key) >> 4, BlockPosition.getBlockZ(key) >> 4);
+            int[] counts = sectionCounts.get(chunkKey);
+
+            if (counts == null) {
+                counts = new int[SECTIONS + 1];
+                sectionCounts.put(chunkKey, counts);
+            }
+
+            counts[getSection(BlockPosition.getBlockY(key))]++;
+            counts[SECTIONS]++;
+        }
+    }
+
+    /**
+     * Remove the given block from the given location. Positions which have since
+     * been taken over by a different block are left alone.
+     *
+     * @param stb
+     *            the block
+     * @param l
+     *            the location of its base block
+     */
+    void remove(@Nonnull BaseSTBBlock stb, @Nonnull Location l) {
+        long key = BlockPosition.getBlockKey(l);
+
+        if (blocks.get(key) == stb) {
+            blocks.remove(key);
+
+            long chunkKey = getChunkKey(l);
+            List<BaseSTBBlock> chunkBlocks = chunks.get(chunkKey);
+
+            if (chunkBlocks != null && removeFromList(chunkBlocks, stb) && chunkBlocks.isEmpty()) {
+                chunks.remove(chunkKey);
+            }
+        }
+
+        removePosition(key, stb);
+
+        for (RelativePosition pos : stb.getBlockStructure()) {
+            Block aux = stb.getAuxiliaryBlock(l, pos);
+            removePosition(BlockPosition.getBlockKey(aux.getX(), aux.getY(), aux.getZ()), stb);
+        }
+    }
+
+    private static long getChunkKey(@Nonnull Location l) {
+        return BlockPosition.getChunkKey(l.getBlockX() >> 4, l.getBlockZ() >> 4);
+    }
+
+    private static boolean removeFromList(@Nonnull List<BaseSTBBlock> list, @Nonnull BaseSTBBlock stb) {
+        // by identity, since blocks hash and compare by location
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == stb) {
+                list.remove(i);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void removePosition(long key, @Nonnull BaseSTBBlock stb) {
+        if (positions.get(key) == stb) {
+            positions.remove(key);
+
+            long chunkKey = BlockPosition.getChunkKey(BlockPosition.getBlockX(key) >> 4, BlockPosition.getBlockZ(key) >> 4);
+            int[] counts = sectionCounts.get(chunkKey);
+            counts[getSection(BlockPosition.getBlockY(key))]--;
+
+            if (--counts[SECTIONS] == 0) {
+                sectionCounts.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Check if there might be a block in the chunk section containing the given
+     * position. A false result is definite; a true result needs confirming with
+     * {@link #get(int, int, int)}.
+     *
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return false if the position's chunk section definitely has no blocks
+     */
+    boolean mayContain(int x, int y, int z) {
+        int[] counts = sectionCounts.get(BlockPosition.getChunkKey(x >> 4, z >> 4));
+        return counts != null && counts[getSection(y)] != 0;
+    }
+
+    /**
+     * Get the block occupying the given position, which may be an auxiliary
+     * position of a multi-block structure.
+     *
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return the block, or null if there is none
+     */
+    @Nullable
+    BaseSTBBlock get(int x, int y, int z) {
+        if (!mayContain(x, y, z)) {
+            return null;
+        }
+
+        return positions.get(BlockPosition.getBlockKey(x, y, z));
+    }
+
+    /**
+     * Get the block whose base block is at the given position.
+     *
+     * @param key
+     *            the packed block position
+     * @return the block, or null if there is none
+     */
+    @Nullable
+    BaseSTBBlock getBlock(long key) {
+        return blocks.get(key);
+    }
+
+    /**
+     * Get the blocks whose base block is in the given chunk.
+     *
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return a read-only view of the chunk's blocks, which changes as blocks are added and removed
+     */
+    @Nonnull
+    List<BaseSTBBlock> getChunkBlocks(int chunkX, int chunkZ) {
+        List<BaseSTBBlock> chunkBlocks = chunks.get(BlockPosition.getChunkKey(chunkX, chunkZ));
+        return chunkBlocks == null ? Collections.emptyList() : Collections.unmodifiableList(chunkBlocks);
+    }
+
+    @Nonnull
+    List<BaseSTBBlock> getBlocks() {
+        return blocks.values();
+    }
+
+    int size() {
+        return blocks.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BlockIndex[" + blocks.size() + " blocks, " + positions.size() + " positions, " + chunks.size() + " chunks]";
+    }
+}
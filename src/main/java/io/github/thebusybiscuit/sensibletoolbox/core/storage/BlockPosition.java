@@ -65,6 +65,53 @@ public class BlockPosition {
         return z;
     }
 
+    /**
+     * Pack the given chunk coordinates into a single long, suitable for use as a
+     * map key.
+     *
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return the packed chunk key
+     */
+    public static long getChunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    /**
+     * Pack the given block coordinates into a single long, suitable for use as a
+     * map key. X and Z take 26 bits each and Y takes 12 bits, which covers the
+     * whole range of coordinates that a world allows.
+     *
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return the packed block key
+     */
+    public static long getBlockKey(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    public static long getBlockKey(@Nonnull Location l) {
+        return getBlockKey(l.getBlockX(), l.getBlockY(), l.getBlockZ());
+    }
+
+    public static int getBlockX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int getBlockY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int getBlockZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
     @Nonnull
     public static BlockPosition fromString(@Nonnull String s) {
         String[] f = STRING_PATTERN.split(s);
@@ -0,0 +1,376 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
+import io.papermc.lib.PaperLib;
+
+/**
+ * A compact binary encoding for the saved state of an STB block, as an alternative
+ * to the YAML documents which older versions store. Items are encoded with
+ * {@link org.bukkit.inventory.ItemStack#serializeAsBytes()} rather than as
+ * base64-encoded Java serialization.
+ * <p>
+ * The encoding is a version byte and a flags byte, followed by the top level
+ * section, which is deflated if {@link #FLAG_DEFLATE} is set. A section is a varint
+ * count followed by that many key/value pairs, where each value starts with a tag
+ * byte saying what follows it.
+ * <p>
+ * {@code serializeAsBytes()} only exists on Paper, so elsewhere blocks are always
+ * saved as YAML; see {@link #isSupported()}.
+ *
+ * @see LocationManager
+ */
+final class BlockStateCodec {
+
+    // the values of the "format" column of the blocks table
+    static final int FORMAT_YAML = 0;
+    static final int FORMAT_BINARY = 1;
+
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFLATE = 0x01;
+    // not worth deflating anything smaller than this
+    private static final int DEFLATE_THRESHOLD = 128;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_LIST = 7;
+    private static final int TAG_SECTION = 8;
+    private static final int TAG_ITEMS = 9;
+
+    // ItemStack#serializeAsBytes() and #deserializeBytes() are Paper API
+    private static final boolean SUPPORTED = PaperLib.isPaper();
+
+    private BlockStateCodec() {}
+
+    /**
+     * Check if this encoding can be used on this server.
+     *
+     * @return true if blocks may be saved in the binary format
+     */
+    static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Encode a block's saved state.
+     *
+     * @param conf
+     *            the block's state, as returned by
+     *            {@link io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock#snapshot()}
+     * @return the encoded state
+     * @throws IllegalArgumentException
+     *             if the state holds a value which this encoding can't represent
+     */
+    @Nonnull
+    static byte[] encode(@Nonnull ConfigurationSection conf) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writeSection(new DataOutputStream(body), conf);
+            byte[] raw = body.toByteArray();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length + 2);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+
+            byte[] deflated = raw.length >= DEFLATE_THRESHOLD ? deflate(raw) : null;
+
+            if (deflated != null && deflated.length < raw.length) {
+                out.writeByte(FLAG_DEFLATE);
+                writeVarInt(out, raw.length);
+                out.write(deflated);
+            } else {
+                out.writeByte(0);
+                out.write(raw);
+            }
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // can't happen when writing to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decode a block's saved state.
+     *
+     * @param data
+     *            the encoded state, as returned by {@link #encode(ConfigurationSection)}
+     * @return the block's state, suitable for passing to the block's constructor
+     * @throws IOException
+     *             if the data can't be decoded
+     */
+    @Nonnull
+    static YamlConfiguration decode(@Nonnull byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+
+        if (version != VERSION) {
+            throw new IOException("Unknown block state version " + version);
+        }
+
+        int flags = in.readUnsignedByte();
+
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int length = readVarInt(in);
+            byte[] raw = inflate(data, data.length - in.available(), length);
+            in = new DataInputStream(new ByteArrayInputStream(raw));
+        }
+
+        YamlConfiguration conf = new YamlConfiguration();
+        readSection(in, conf);
+        return conf;
+    }
+
+    private static void writeSection(@Nonnull DataOutputStream out, @Nonnull ConfigurationSection conf) throws IOException {
+        List<String> keys = new ArrayList<>(conf.getKeys(false));
+        writeVarInt(out, keys.size());
+
+        for (String key : keys) {
+            writeString(out, key);
+            writeValue(out, conf.get(key));
+        }
+    }
+
+    private static void writeValue(@Nonnull DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TAG_INT);
+            writeVarInt(out, zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TAG_LIST);
+            writeVarInt(out, list.size());
+
+            for (Object o : list) {
+                if (o instanceof ConfigurationSection) {
+                    throw new IllegalArgumentException("Cannot encode a section inside a list");
+                }
+
+                writeValue(out, o);
+            }
+        } else if (value instanceof ConfigurationSection) {
+            out.writeByte(TAG_SECTION);
+            writeSection(out, (ConfigurationSection) value);
+        } else if (value instanceof ItemSnapshot) {
+            byte[][] items = ((ItemSnapshot) value).toBytes();
+            out.writeByte(TAG_ITEMS);
+            writeVarInt(out, items.length);
+
+            for (byte[] item : items) {
+                writeVarInt(out, item.length);
+                out.write(item);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode a " + value.getClass().getName());
+        }
+    }
+
+    private static void readSection(@Nonnull DataInputStream in, @Nonnull ConfigurationSection conf) throws IOException {
+        int count = readVarInt(in);
+
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            int tag = in.readUnsignedByte();
+
+            if (tag == TAG_SECTION) {
+                readSection(in, conf.createSection(key));
+            } else {
+                conf.set(key, readValue(in, tag));
+            }
+        }
+    }
+
+    private static Object readValue(@Nonnull DataInputStream in, int tag) throws IOException {
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return false;
+            case TAG_TRUE:
+                return true;
+            case TAG_INT:
+                return unZigZag(readVarInt(in));
+            case TAG_LONG:
+                return unZigZag(readVarLong(in));
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_STRING:
+                return readString(in);
+            case TAG_LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, in.readUnsignedByte()));
+                }
+
+                return list;
+            case TAG_SECTION:
+                // sections are only valid directly inside another section
+                throw new IOException("Unexpected section in a list");
+            case TAG_ITEMS:
+                byte[][] items = new byte[readVarInt(in)][];
+
+                for (int i = 0; i < items.length; i++) {
+                    items[i] = new byte[readVarInt(in)];
+                    in.readFully(items[i]);
+                }
+
+                return ItemSnapshot.fromBytes(items);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    @Nonnull
+    private static byte[] deflate(@Nonnull byte[] raw) {
+        Deflater deflater = new Deflater();
+
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+            byte[] buf = new byte[1024];
+
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Nonnull
+    private static byte[] inflate(@Nonnull byte[] data, int offset, int length) throws IOException {
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] raw = new byte[length];
+            int n = 0;
+
+            while (n < length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, length - n);
+
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                n += read;
+            }
+
+            if (n != length) {
+                throw new IOException("Truncated block state: expected " + length + " bytes, got " + n);
+            }
+
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block state", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(@Nonnull DataOutputStream out, @Nonnull String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    @Nonnull
+    private static String readString(@Nonnull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static int unZigZag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static long unZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static void writeVarInt(@Nonnull DataOutputStream out, int n) throws IOException {
+        while ((n & ~0x7F) != 0) {
+            out.writeByte((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+
+        out.writeByte(n);
+    }
+
+    private static void writeVarLong(@Nonnull DataOutputStream out, long n) throws IOException {
+        while ((n & ~0x7FL) != 0) {
+            out.writeByte((int) (n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+
+        out.writeByte((int) n);
+    }
+
+    private static int readVarInt(@Nonnull DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(@Nonnull DataInputStream in) throws IOException {
+        long n = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            n |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return n;
+            }
+        }
+
+        throw new IOException("Malformed varint");
+    }
+}
@@ -7,6 +7,7 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,11 +31,14 @@ class DatabaseManager {
 
     private final Logger logger;
     private final Connection connection;
+    // the loader thread's own connection, so that its reads never share the writer's transaction
+    private final Connection readConnection;
 
     public DatabaseManager(@Nonnull Logger logger) throws SQLException {
         this.logger = logger;
         connection = connectToSQLite();
         setupTable();
+        readConnection = connectToSQLiteReadOnly();
     }
 
     @Nonnull
@@ -42,6 +46,17 @@ class DatabaseManager {
         return connection;
     }
 
+    /**
+     * Get the read-only connection used to load blocks. With WAL, its reads can run
+     * alongside the writer's, and only ever see committed data.
+     *
+     * @return the read-only connection
+     */
+    @Nonnull
+    public Connection getReadConnection() {
+        return readConnection;
+    }
+
     @Nonnull
     private Connection connectToSQLite() throws SQLException {
         logger.info("Connecting to local database...");
@@ -49,15 +64,49 @@ class DatabaseManager {
 
         try {
             // Class.forName(...) is no longer required as of JDBC 4.0+
-            return DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+
+            // WAL lets the loader thread keep reading while the DB thread writes; NORMAL sync only
+            // syncs on checkpoints, which keeps the database consistent, but trades away the
+            // durability of the most recent commits if the OS crashes or the power fails
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+            } catch (SQLException x) {
+                logger.log(Level.WARNING, "Could not enable WAL mode for the local database", x);
+            }
+
+            return conn;
         } catch (Exception | LinkageError x) {
             logger.log(Level.SEVERE, x, () -> "Could not connect to local database: \"jdbc:sqlite:" + file.getAbsolutePath() + "\"");
             throw new IllegalStateException("Database connection could not be established.");
         }
     }
 
+    @Nonnull
+    private Connection connectToSQLiteReadOnly() {
+        File file = new File(SensibleToolboxPlugin.getInstance().getDataFolder(), "blocks.db");
+
+        try {
+            // SQLITE_OPEN_READONLY; the journal mode is a property of the database file, set up by the writer
+            Properties props = new Properties();
+            props.setProperty("open_mode", "1");
+            return DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath(), props);
+        } catch (Exception | LinkageError x) {
+            logger.log(Level.SEVERE, x, () -> "Could not open a read-only connection to local database: \"jdbc:sqlite:" + file.getAbsolutePath() + "\"");
+            throw new IllegalStateException("Database connection could not be established.");
+        }
+    }
+
     private void setupTable() throws SQLException {
-        createTableIfNotExists("blocks", "world_id VARCHAR(36) NOT NULL," + "x INTEGER NOT NULL," + "y INTEGER NOT NULL," + "z INTEGER NOT NULL," + "type VARCHAR(" + STBItemRegistry.MAX_ITEM_ID_LENGTH + ") NOT NULL," + "data TEXT NOT NULL," + "PRIMARY KEY (world_id,x,y,z)");
+        createTableIfNotExists("blocks", "world_id VARCHAR(36) NOT NULL," + "x INTEGER NOT NULL," + "y INTEGER NOT NULL," + "z INTEGER NOT NULL," + "type VARCHAR(" + STBItemRegistry.MAX_ITEM_ID_LENGTH + ") NOT NULL," + "data TEXT NOT NULL," + "format INTEGER NOT NULL DEFAULT " + BlockStateCodec.FORMAT_YAML + "," + "PRIMARY KEY (world_id,x,y,z)");
+
+        // tables created by older versions only hold YAML data; rows are converted as they get saved again
+        addColumnIfNotExists("blocks", "format", "INTEGER NOT NULL DEFAULT " + BlockStateCodec.FORMAT_YAML);
+
+        // blocks are loaded a chunk at a time, or (for blocks which are always kept loaded) by type
+        createIndexIfNotExists("blocks", "chunk", "world_id, (x >> 4), (z >> 4)");
+        createIndexIfNotExists("blocks", "type", "world_id, type");
     }
 
     @ParametersAreNonnullByDefault
@@ -74,6 +123,33 @@ class DatabaseManager {
         }
     }
 
+    @ParametersAreNonnullByDefault
+    private void addColumnIfNotExists(String tableName, String column, String ddl) throws SQLException {
+        String fullName = getFullTableName(tableName);
+
+        try (Statement stmt = connection.createStatement()) {
+            if (!hasColumn(fullName, column)) {
+                logger.info("Adding column " + column + " to table " + fullName + "...");
+                stmt.executeUpdate("ALTER TABLE " + fullName + " ADD COLUMN " + column + " " + ddl);
+            }
+        } catch (SQLException e) {
+            LogUtils.warning("can't add column " + column + " to table " + fullName + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @ParametersAreNonnullByDefault
+    private void createIndexIfNotExists(String tableName, String indexName, String columns) throws SQLException {
+        String fullName = getFullTableName(tableName);
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS " + fullName + "_" + indexName + " ON " + fullName + "(" + columns + ")");
+        } catch (SQLException e) {
+            LogUtils.warning("can't create index " + indexName + " on table " + fullName + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
     static String getFullTableName(@Nonnull String base) {
         return SensibleToolboxPlugin.getInstance().getConfig().getString("database.table_prefix", "stb_") + base;
     }
@@ -83,4 +159,13 @@ class DatabaseManager {
         ResultSet tables = dbm.getTables(null, null, table, null);
         return tables.next();
     }
+
+    @ParametersAreNonnullByDefault
+    private boolean hasColumn(String table, String column) throws SQLException {
+        DatabaseMetaData dbm = connection.getMetaData();
+
+        try (ResultSet columns = dbm.getColumns(null, null, table, column)) {
+            return columns.next();
+        }
+    }
 }
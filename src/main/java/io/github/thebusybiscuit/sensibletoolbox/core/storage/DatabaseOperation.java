@@ -2,8 +2,14 @@ package io.github.thebusybiscuit.sensibletoolbox.core.storage;
 
 enum DatabaseOperation {
 
-    INSERT,
-    UPDATE,
+    /**
+     * Insert the block's row, or overwrite it if one is already there.
+     */
+    UPSERT,
+
+    /**
+     * A tombstone; delete the block's row, if there is one.
+     */
     DELETE,
     FINISH,
     COMMIT;
@@ -2,6 +2,8 @@ package io.github.thebusybiscuit.sensibletoolbox.core.storage;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 
 import javax.annotation.Nonnull;
@@ -12,16 +14,21 @@ import me.desht.dhutils.Debugger;
 class DatabaseTask implements Runnable {
 
     private final LocationManager manager;
-    private final PreparedStatement insertStmt;
-    private final PreparedStatement updateStmt;
+    private final PreparedStatement upsertStmt;
     private final PreparedStatement deleteStmt;
 
+    // the records in the batch currently being built, all of the same kind
+    private final List<UpdateRecord> batch = new ArrayList<>();
+    // rows modified by batches already executed since the last commit
+    private int batchCount;
+    // the records taken since the last commit, to be marked done once it's been made
+    private final List<UpdateRecord> uncommitted = new ArrayList<>();
+
     public DatabaseTask(@Nonnull LocationManager manager) throws SQLException {
         this.manager = manager;
 
         String tableName = DatabaseManager.getFullTableName("blocks");
-        insertStmt = manager.getDatabaseConnection().getConnection().prepareStatement("INSERT INTO " + tableName + " VALUES(?,?,?,?,?,?)");
-        updateStmt = manager.getDatabaseConnection().getConnection().prepareStatement("UPDATE " + tableName + " SET data = ?, type = ? WHERE world_id = ? and x = ? and y = ? and z = ?");
+        upsertStmt = manager.getDatabaseConnection().getConnection().prepareStatement("INSERT INTO " + tableName + " (world_id,x,y,z,type,data,format) VALUES(?,?,?,?,?,?,?) ON CONFLICT(world_id,x,y,z) DO UPDATE SET type = excluded.type, data = excluded.data, format = excluded.format");
         deleteStmt = manager.getDatabaseConnection().getConnection().prepareStatement("DELETE FROM " + tableName + " WHERE world_id = ? and x = ? and y = ? and z = ?");
     }
 
@@ -34,44 +41,27 @@ class DatabaseTask implements Runnable {
             try {
                 // block till available
                 UpdateRecord rec = manager.getUpdateRecord();
-                int n = 0;
-                Debugger.getInstance().debug("DB write [" + rec + "]");
+                Debugger.getInstance().debug(2, "DB write [" + rec + "]");
+
+                if (rec.getOp() == DatabaseOperation.UPSERT || rec.getOp() == DatabaseOperation.DELETE) {
+                    uncommitted.add(rec);
+                }
+
+                if (!encode(rec)) {
+                    continue;
+                }
 
                 switch (rec.getOp()) {
                     case FINISH:
                         finished = true;
                         break;
                     case COMMIT:
-                        manager.getDatabaseConnection().getConnection().commit();
-                        break;
-                    case INSERT:
-                        insertStmt.setString(1, rec.getWorldID().toString());
-                        insertStmt.setInt(2, rec.getX());
-                        insertStmt.setInt(3, rec.getY());
-                        insertStmt.setInt(4, rec.getZ());
-                        insertStmt.setString(5, rec.getType());
-                        insertStmt.setString(6, rec.getData());
-                        n = insertStmt.executeUpdate();
-                        break;
-                    case UPDATE:
-                        updateStmt.setString(1, rec.getData());
-                        updateStmt.setString(2, rec.getType());
-                        updateStmt.setString(3, rec.getWorldID().toString());
-                        updateStmt.setInt(4, rec.getX());
-                        updateStmt.setInt(5, rec.getY());
-                        updateStmt.setInt(6, rec.getZ());
-                        n = updateStmt.executeUpdate();
+                        commit();
                         break;
-                    case DELETE:
-                        deleteStmt.setString(1, rec.getWorldID().toString());
-                        deleteStmt.setInt(2, rec.getX());
-                        deleteStmt.setInt(3, rec.getY());
-                        deleteStmt.setInt(4, rec.getZ());
-                        n = deleteStmt.executeUpdate();
+                    default:
+                        addToBatch(rec);
                         break;
                 }
-
-                Debugger.getInstance().debug("DB write complete: rows modified = " + n);
             } catch (InterruptedException e) {
                 SensibleToolboxPlugin.getInstance().getLogger().log(Level.SEVERE, "Database Thread was interrupted", e);
                 Thread.currentThread().interrupt();
@@ -82,4 +72,141 @@ class DatabaseTask implements Runnable {
 
         Debugger.getInstance().debug("database writer thread exiting");
     }
+
+    private void commit() throws SQLException {
+        try {
+            int n = flushBatch();
+            manager.getDatabaseConnection().getConnection().commit();
+            Debugger.getInstance().debug("DB commit complete: rows modified = " + n);
+        } finally {
+            // even if the commit failed, nothing more will come of these records
+            for (UpdateRecord rec : uncommitted) {
+                rec.markDone();
+            }
+
+            uncommitted.clear();
+        }
+    }
+
+    private void addToBatch(@Nonnull UpdateRecord rec) throws SQLException {
+        if (!batch.isEmpty() && batch.get(0).getOp() != rec.getOp()) {
+            // consecutive records of the same kind share a batch; the batches
+            // themselves must run in order, e.g. a delete before a re-insert
+            batchCount += flushBatch();
+        }
+
+        PreparedStatement stmt = bind(rec);
+        stmt.addBatch();
+        batch.add(rec);
+    }
+
+    /**
+     * Execute the batch of statements built up so far, if any.
+     *
+     * @return the total number of rows modified since the last commit
+     */
+    private int flushBatch() {
+        int n = batchCount;
+        batchCount = 0;
+
+        if (batch.isEmpty()) {
+            return n;
+        }
+
+        PreparedStatement stmt = getStatement(batch.get(0).getOp());
+
+        try {
+            int[] rows = stmt.executeBatch();
+
+            for (int i = 0; i < rows.length; i++) {
+                n += Math.max(rows[i], 0);
+                checkRowsModified(batch.get(i), rows[i]);
+            }
+        } catch (SQLException e) {
+            // fall back to one statement per record, so that a single bad
+            // record doesn't lose the rest of the batch
+            SensibleToolboxPlugin.getInstance().getLogger().log(Level.WARNING, "Batch of " + batch.size() + " DB writes failed, retrying them one at a time", e);
+            n += replayBatch();
+        } finally {
+            batch.clear();
+        }
+
+        return n;
+    }
+
+    private int replayBatch() {
+        int n = 0;
+
+        for (UpdateRecord rec : batch) {
+            try {
+                int rows = bind(rec).executeUpdate();
+                n += rows;
+                checkRowsModified(rec, rows);
+            } catch (SQLException e) {
+                SensibleToolboxPlugin.getInstance().getLogger().log(Level.SEVERE, "Could not write [" + rec + "] to the database", e);
+            }
+        }
+
+        return n;
+    }
+
+    private void checkRowsModified(@Nonnull UpdateRecord rec, int rows) {
+        // a tombstone for a block which never got saved legitimately deletes nothing,
+        // but an upsert always has to leave a row behind
+        if (rec.getOp() == DatabaseOperation.UPSERT && rows == 0) {
+            SensibleToolboxPlugin.getInstance().getLogger().log(Level.WARNING, "DB write [{0}] did not modify any rows", rec);
+        }
+    }
+
+    @Nonnull
+    private PreparedStatement bind(@Nonnull UpdateRecord rec) throws SQLException {
+        switch (rec.getOp()) {
+            case UPSERT:
+                upsertStmt.setString(1, rec.getWorldID().toString());
+                upsertStmt.setInt(2, rec.getX());
+                upsertStmt.setInt(3, rec.getY());
+                upsertStmt.setInt(4, rec.getZ());
+                upsertStmt.setString(5, rec.getType());
+
+                if (rec.getFormat() == BlockStateCodec.FORMAT_BINARY) {
+                    upsertStmt.setBytes(6, rec.getBinaryData());
+                } else {
+                    upsertStmt.setString(6, rec.getData());
+                }
+
+                upsertStmt.setInt(7, rec.getFormat());
+                return upsertStmt;
+            case DELETE:
+                deleteStmt.setString(1, rec.getWorldID().toString());
+                deleteStmt.setInt(2, rec.getX());
+                deleteStmt.setInt(3, rec.getY());
+                deleteStmt.setInt(4, rec.getZ());
+                return deleteStmt;
+            default:
+                throw new IllegalArgumentException("Cannot write a " + rec.getOp() + " record");
+        }
+    }
+
+    @Nonnull
+    private PreparedStatement getStatement(@Nonnull DatabaseOperation op) {
+        switch (op) {
+            case UPSERT:
+                return upsertStmt;
+            case DELETE:
+                return deleteStmt;
+            default:
+                throw new IllegalArgumentException("No statement for a " + op + " record");
+        }
+    }
+
+    private boolean encode(@Nonnull UpdateRecord rec) {
+        try {
+            rec.encodeSnapshot();
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            // a LinkageError (e.g. a missing Paper method) must not kill the writer thread
+            SensibleToolboxPlugin.getInstance().getLogger().log(Level.SEVERE, "Could not encode STB block data for [" + rec + "]", e);
+            return false;
+        }
+    }
 }
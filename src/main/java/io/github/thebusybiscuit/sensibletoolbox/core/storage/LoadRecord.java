@@ -0,0 +1,67 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * A saved STB block which has been fetched and decoded by a {@link WorldLoad},
+ * and is waiting for the main thread to create and register it.
+ */
+class LoadRecord {
+
+    private final WorldLoad load;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final String type;
+    private final YamlConfiguration conf;
+
+    @Nonnull
+    public static LoadRecord finishingRecord(@Nonnull WorldLoad load) {
+        return new LoadRecord(load, 0, 0, 0, null, null);
+    }
+
+    LoadRecord(@Nonnull WorldLoad load, int x, int y, int z, @Nullable String type, @Nullable YamlConfiguration conf) {
+        this.load = load;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.type = type;
+        this.conf = conf;
+    }
+
+    @Nonnull
+    public WorldLoad getLoad() {
+        return load;
+    }
+
+    /**
+     * Check if this record marks the end of its load.
+     *
+     * @return true if there are no more records for this load
+     */
+    public boolean isFinished() {
+        return type == null;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public YamlConfiguration getConfiguration() {
+        return conf;
+    }
+
+    @Nonnull
+    public Location getLocation() {
+        return new Location(load.getWorld(), x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return isFinished() ? "FINISH " + load : String.format("%s,%d,%d,%d %s", load.getWorld().getName(), x, y, z, type);
+    }
+}
@@ -3,17 +3,25 @@ package io.github.thebusybiscuit.sensibletoolbox.core.storage;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import javax.annotation.Nonnull;
@@ -27,13 +35,12 @@ import org.bukkit.Tag;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.data.type.WallSign;
-import org.bukkit.configuration.file.YamlConfiguration;
 
 import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
 import io.github.thebusybiscuit.sensibletoolbox.api.SensibleToolbox;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
 import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBItem;
-import io.github.thebusybiscuit.sensibletoolbox.utils.STBUtil;
+import io.github.thebusybiscuit.sensibletoolbox.utils.LongObjectMap;
 import me.desht.dhutils.Debugger;
 import me.desht.dhutils.MiscUtil;
 import me.desht.dhutils.blocks.PersistableLocation;
@@ -55,9 +62,13 @@ public final class LocationManager {
 
     private static LocationManager instance;
 
+    // the number of decoded blocks which the loader thread may get ahead of the main thread
+    private static final int LOAD_QUEUE_SIZE = 1024;
+
     private final Set<String> deferredBlocks = new HashSet<>();
 
-    private final PreparedStatement queryStmt;
+    // only used by the loader thread
+    private final PreparedStatement queryChunkStmt;
     private final PreparedStatement queryTypeStmt;
 
     // The saving interval (in ms)
@@ -65,27 +76,72 @@ public final class LocationManager {
     private long lastSave;
     private long totalTicks;
     private long totalTime;
+    // The maximum time (in ns) to spend running tickers per server tick, 0 for no limit
+    private long tickBudget;
+    private long overrunCount;
+    // The maximum number of records, and time (in ns), to spend snapshotting per server tick during a save
+    private int saveBatchSize;
+    private long saveBudget;
+    // The maximum time (in ns) to spend registering loaded blocks per server tick, 0 for no limit
+    private long loadBudget;
     private final DatabaseManager databaseManager;
     private final Thread updaterTask;
     private static final BlockAccess blockAccess = new BlockAccess();
 
-    // tracks those blocks (on a per-world basis) which need to do something on a server tick
-    private final Map<UUID, Set<BaseSTBBlock>> allTickers = new HashMap<>();
-    // indexes all loaded blocks by world and (frozen) location
-    private final Map<UUID, Map<String, BaseSTBBlock>> blockIndex = new HashMap<>();
-    // tracks the pending updates by (frozen) location since the last save was done
-    private final Map<String, UpdateRecord> pendingUpdates = new HashMap<>();
+    // tracks those blocks (on a per-world basis, bucketed by chunk) which need to do something on a server tick
+    private final Map<UUID, Map<Long, TickerBucket>> allTickers = new HashMap<>();
+    // the scheduling state of each ticking block (blocks hash by location, so this must be identity-based)
+    private final Map<BaseSTBBlock, ScheduledTicker> tickerIndex = new IdentityHashMap<>();
+    // holds the tickers in loaded chunks, slotted by the ticks on which they are due
+    private final TickWheel tickWheel = new TickWheel();
+    // scratch list of the tickers due on the current tick
+    private final List<ScheduledTicker> dueTickers = new ArrayList<>();
+    // due tickers waiting to run, including any carried over when the tick budget ran out
+    private final Deque<ScheduledTicker> runQueue = new ArrayDeque<>();
+    private long currentTick;
+    // the ticker whose block is in onServerTick() right now, if any
+    private ScheduledTicker runningTicker;
+    // indexes all loaded blocks by world and packed position, including the auxiliary positions of multi-blocks
+    private final Map<UUID, BlockIndex> blockIndex = new HashMap<>();
+    // tracks the pending updates since the last save was done, by world and packed position
+    private final Map<UUID, LongObjectMap<UpdateRecord>> pendingUpdates = new HashMap<>();
+    // blocks which have been modified since the last save was done; each block is only added once, when it becomes dirty
+    private final List<BaseSTBBlock> dirtyBlocks = new ArrayList<>();
+    // the records of the save in progress which have yet to be snapshotted and passed to the DB writer thread
+    private final Deque<UpdateRecord> saveQueue = new ArrayDeque<>();
+    // the records which have been handed over for saving, by world, chunk key and packed position, until the DB writer is done with them
+    private final Map<UUID, LongObjectMap<LongObjectMap<UpdateRecord>>> unsavedUpdates = new HashMap<>();
     // a blocking queue is used to pass actual updates over to the DB writer thread
     private final BlockingQueue<UpdateRecord> updateQueue = new LinkedBlockingQueue<>();
+    // world loads which have been started, and not yet finished
+    private final List<WorldLoad> activeLoads = new ArrayList<>();
+    // chunk loads held back until the writes for their chunks are done, so that they don't read stale rows
+    private final List<WorldLoad> waitingLoads = new ArrayList<>();
+    // the chunks whose blocks have been loaded (or are being loaded), by world and chunk key, with the load doing it
+    private final Map<UUID, Map<Long, WorldLoad>> chunkLoads = new HashMap<>();
+    // block types which are always loaded, rather than only when their chunk is loaded
+    private final Set<String> keepLoaded = new HashSet<>();
+    // if true, blocks are dropped from memory when their chunk is unloaded
+    private boolean unloadBlocks;
+    // blocks are fetched from the DB and decoded on the loader thread, and passed over via a bounded queue
+    private final BlockingQueue<LoadRecord> loadQueue = new ArrayBlockingQueue<>(LOAD_QUEUE_SIZE);
+    private final ExecutorService loaderService = Executors.newSingleThreadExecutor(r -> new Thread(r, "STB - Loader Thread"));
 
     private LocationManager(@Nonnull SensibleToolboxPlugin plugin) throws SQLException {
         saveInterval = plugin.getConfig().getInt("save_interval", 30) * 1000;
+        tickBudget = plugin.getConfig().getLong("tick_budget_ns", 0);
+        saveBatchSize = plugin.getConfig().getInt("save_batch_size", 250);
+        saveBudget = plugin.getConfig().getLong("save_budget_ns", 1000000);
+        loadBudget = plugin.getConfig().getLong("load_budget_ns", 5000000);
+        unloadBlocks = plugin.getConfig().getBoolean("chunk_loading.unload_blocks", false);
+        keepLoaded.addAll(plugin.getConfig().getStringList("chunk_loading.keep_loaded"));
         lastSave = System.currentTimeMillis();
 
         databaseManager = new DatabaseManager(plugin.getLogger());
         databaseManager.getConnection().setAutoCommit(false);
-        queryStmt = databaseManager.getConnection().prepareStatement("SELECT * FROM " + DatabaseManager.getFullTableName("blocks") + " WHERE world_id = ?");
-        queryTypeStmt = databaseManager.getConnection().prepareStatement("SELECT * FROM " + DatabaseManager.getFullTableName("blocks") + " WHERE world_id = ? and type = ?");
+        // must match the chunk index, see DatabaseManager
+        queryChunkStmt = databaseManager.getReadConnection().prepareStatement("SELECT * FROM " + DatabaseManager.getFullTableName("blocks") + " WHERE world_id = ? and (x >> 4) = ? and (z >> 4) = ?");
+        queryTypeStmt = databaseManager.getReadConnection().prepareStatement("SELECT * FROM " + DatabaseManager.getFullTableName("blocks") + " WHERE world_id = ? and type = ?");
         updaterTask = new Thread(new DatabaseTask(this), "STB - Database Thread");
     }
 
@@ -116,25 +172,300 @@ public final class LocationManager {
     public void addTicker(@Nonnull BaseSTBBlock stb) {
         Preconditions.checkArgument(stb != null, "Cannot add a ticker that is null!");
 
-        Location l = stb.getLocation();
+        if (tickerIndex.containsKey(stb)) {
+            return;
+        }
+
+        ScheduledTicker ticker = new ScheduledTicker(stb, stb.getTickRate(), stb.getTicksLived());
+        tickerIndex.put(stb, ticker);
+        placeTicker(ticker, stb.getLocation());
+        Debugger.getInstance().debug(2, "Added ticking block " + stb);
+    }
+
+    /**
+     * Remove the given block from the tick schedule. This is done automatically when a
+     * block is unregistered.
+     *
+     * @param stb
+     *            the block to stop ticking
+     */
+    public void removeTicker(@Nonnull BaseSTBBlock stb) {
+        ScheduledTicker ticker = tickerIndex.remove(stb);
+
+        if (ticker != null) {
+            // the block keeps its age, in case it starts ticking again
+            stb.setTicksLived(blockAccess, ticker.getAge(currentTick));
+            detachTicker(ticker, stb.getLocation().getWorld());
+            Debugger.getInstance().debug(2, "Removed ticking block " + stb);
+        }
+    }
+
+    /**
+     * Get the age of the given block in ticks, counting only the ticks during which its
+     * chunk was loaded. Within the block's {@link BaseSTBBlock#onServerTick()}, this is
+     * the age it had when it fell due, which is always a multiple of its tick rate.
+     *
+     * @param stb
+     *            the block
+     * @return the block's age, or -1 if it isn't ticking
+     */
+    public long getTicksLived(@Nonnull BaseSTBBlock stb) {
+        ScheduledTicker ticker = tickerIndex.get(stb);
+
+        if (ticker == null) {
+            return -1;
+        }
+
+        return ticker == runningTicker ? ticker.getQueuedAge() : ticker.getAge(currentTick);
+    }
+
+    /**
+     * Reschedule the given block after its tick rate has changed. The block's
+     * {@link BaseSTBBlock#getTicksLived()} carries on uninterrupted; it will next be ticked
+     * on the first tick where its age is a multiple of the new rate.
+     *
+     * @param stb
+     *            the block whose tick rate has changed
+     */
+    public void updateTickRate(@Nonnull BaseSTBBlock stb) {
+        ScheduledTicker ticker = tickerIndex.get(stb);
+        int rate = stb.getTickRate();
+
+        if (ticker == null) {
+            // not registered (yet); the rate will be picked up when it is
+            return;
+        } else if (rate <= 0) {
+            removeTicker(stb);
+        } else if (rate != ticker.getRate()) {
+            boolean scheduled = ticker.isScheduled();
+
+            if (scheduled) {
+                tickWheel.unschedule(ticker);
+            }
+
+            ticker.setRate(rate);
+
+            if (scheduled) {
+                tickWheel.schedule(ticker);
+            }
+
+            Debugger.getInstance().debug(2, "Rescheduled ticking block " + stb + " at rate " + rate);
+        }
+    }
+
+    private void placeTicker(@Nonnull ScheduledTicker ticker, @Nonnull Location l) {
         World w = l.getWorld();
-        Set<BaseSTBBlock> tickerSet = allTickers.get(w.getUID());
+        int chunkX = l.getBlockX() >> 4;
+        int chunkZ = l.getBlockZ() >> 4;
+        long chunkKey = BlockPosition.getChunkKey(chunkX, chunkZ);
+
+        Map<Long, TickerBucket> buckets = allTickers.computeIfAbsent(w.getUID(), k -> new HashMap<>());
+        TickerBucket bucket = buckets.get(chunkKey);
 
-        if (tickerSet == null) {
-            tickerSet = new HashSet<>();
-            allTickers.put(w.getUID(), tickerSet);
+        if (bucket == null) {
+            bucket = new TickerBucket(chunkKey, w.isChunkLoaded(chunkX, chunkZ));
+            buckets.put(chunkKey, bucket);
         }
 
-        tickerSet.add(stb);
-        Debugger.getInstance().debug(2, "Added ticking block " + stb);
+        bucket.getTickers().add(ticker);
+        ticker.setBucket(bucket);
+
+        if (bucket.isLoaded()) {
+            ticker.resume(currentTick);
+            tickWheel.schedule(ticker);
+        }
+    }
+
+    private void detachTicker(@Nonnull ScheduledTicker ticker, @Nonnull World w) {
+        if (ticker.isScheduled()) {
+            ticker.suspend(currentTick);
+            tickWheel.unschedule(ticker);
+        }
+
+        TickerBucket bucket = ticker.getBucket();
+        ticker.setBucket(null);
+
+        if (bucket != null && bucket.getTickers().remove(ticker) && bucket.getTickers().isEmpty()) {
+            Map<Long, TickerBucket> buckets = allTickers.get(w.getUID());
+
+            if (buckets != null) {
+                buckets.remove(bucket.getChunkKey());
+            }
+        }
+    }
+
+    /**
+     * The given chunk has just been loaded; any ticking blocks in it will be
+     * ticked again from now on.
+     *
+     * @param chunk
+     *            the chunk that has been loaded
+     */
+    public void onChunkLoad(@Nonnull Chunk chunk) {
+        setChunkTicking(chunk, true);
+        loadChunk(chunk);
+    }
+
+    /**
+     * The given chunk is about to be unloaded; any ticking blocks in it will
+     * not be ticked until it is loaded again.
+     *
+     * @param chunk
+     *            the chunk that is being unloaded
+     */
+    public void onChunkUnload(@Nonnull Chunk chunk) {
+        setChunkTicking(chunk, false);
+
+        boolean unloaded = false;
+
+        if (unloadBlocks) {
+            for (BaseSTBBlock stb : new ArrayList<>(get(chunk))) {
+                if (!keepLoaded.contains(stb.getItemTypeID())) {
+                    unloadBlock(stb);
+                    unloaded = true;
+                }
+            }
+        }
+
+        Map<Long, WorldLoad> loads = chunkLoads.get(chunk.getWorld().getUID());
+        long key = BlockPosition.getChunkKey(chunk.getX(), chunk.getZ());
+        WorldLoad load = loads == null ? null : loads.get(key);
+
+        // while all of the chunk's blocks stay in memory, there's no need to load it again
+        if (load != null && (unloaded || !load.isFinished())) {
+            loads.remove(key);
+            // anything not registered yet will be loaded along with the chunk next time
+            load.cancel();
+        }
+    }
+
+    /**
+     * Check if the STB blocks in the given block's chunk are still being loaded. Until
+     * they are, an STB block there looks like a plain vanilla block, so anything which
+     * could break or replace it should be held off.
+     *
+     * @param b
+     *            the block to check
+     *
+     * @return true if the block's chunk has a load which isn't finished yet
+     */
+    public boolean isChunkLoading(@Nonnull Block b) {
+        return isLoadingAny() && isChunkLoading(b.getWorld(), b.getX() >> 4, b.getZ() >> 4);
+    }
+
+    private boolean isLoadingAny() {
+        return !activeLoads.isEmpty() || !waitingLoads.isEmpty();
+    }
+
+    private boolean isChunkLoading(@Nonnull World w, int chunkX, int chunkZ) {
+        Map<Long, WorldLoad> loads = chunkLoads.get(w.getUID());
+        WorldLoad load = loads == null ? null : loads.get(BlockPosition.getChunkKey(chunkX, chunkZ));
+        return load != null && !load.isFinished();
+    }
+
+    private void loadChunk(@Nonnull Chunk chunk) {
+        Map<Long, WorldLoad> loads = chunkLoads.computeIfAbsent(chunk.getWorld().getUID(), k -> new HashMap<>());
+        long key = BlockPosition.getChunkKey(chunk.getX(), chunk.getZ());
+
+        if (!loads.containsKey(key)) {
+            WorldLoad load = new WorldLoad(this, chunk.getWorld(), chunk.getX(), chunk.getZ());
+            loads.put(key, load);
+
+            if (hasUnsavedUpdates(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ())) {
+                // e.g. blocks unloaded with the chunk a moment ago, whose latest state isn't in the DB yet
+                waitingLoads.add(load);
+            } else {
+                startLoad(load);
+            }
+        }
+    }
+
+    private boolean isChunkLoaded(@Nonnull Location l) {
+        Map<Long, WorldLoad> loads = chunkLoads.get(l.getWorld().getUID());
+        int chunkX = l.getBlockX() >> 4;
+        int chunkZ = l.getBlockZ() >> 4;
+        long key = BlockPosition.getChunkKey(chunkX, chunkZ);
+
+        if (loads == null || !loads.containsKey(key)) {
+            return false;
+        }
+
+        if (!l.getWorld().isChunkLoaded(chunkX, chunkZ)) {
+            // its blocks were kept in memory, but this one has to be loaded with the chunk next time
+            loads.remove(key);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Drop the given block from memory, leaving it in the world. Any of its changes which
+     * haven't been saved yet are snapshotted first, since the block object is going away.
+     *
+     * @param stb
+     *            the block to unload
+     */
+    private void unloadBlock(@Nonnull BaseSTBBlock stb) {
+        Location l = stb.getLocation();
+        LongObjectMap<UpdateRecord> updates = pendingUpdates.get(l.getWorld().getUID());
+        UpdateRecord rec = updates == null ? null : updates.get(BlockPosition.getBlockKey(l));
+
+        if (rec == null && stb.isDirty()) {
+            rec = new UpdateRecord(DatabaseOperation.UPSERT, l.getWorld().getUID(), l.getBlockX(), l.getBlockY(), l.getBlockZ(), stb);
+        }
+
+        if (rec != null && rec.getOp() == DatabaseOperation.UPSERT) {
+            if (updates != null) {
+                updates.remove(BlockPosition.getBlockKey(l));
+            }
+
+            // it stays in the dirty list until the next save, which will skip it
+            stb.setDirty(blockAccess, false);
+            rec.setType(stb.getItemTypeID());
+            rec.setSnapshot(stb.snapshot());
+            // queued behind anything else for this location, which keeps the writes in order
+            queueForSave(rec);
+        }
+
+        removeTicker(stb);
+        stb.unload(blockAccess, l);
+        getWorldIndex(l.getWorld()).remove(stb, l);
+        Debugger.getInstance().debug(2, "Unloaded " + stb + " @ " + l);
+    }
+
+    private void setChunkTicking(@Nonnull Chunk chunk, boolean loaded) {
+        Map<Long, TickerBucket> buckets = allTickers.get(chunk.getWorld().getUID());
+
+        if (buckets == null) {
+            return;
+        }
+
+        TickerBucket bucket = buckets.get(BlockPosition.getChunkKey(chunk.getX(), chunk.getZ()));
+
+        if (bucket != null && bucket.isLoaded() != loaded) {
+            bucket.setLoaded(loaded);
+
+            for (ScheduledTicker ticker : bucket.getTickers()) {
+                if (loaded) {
+                    ticker.resume(currentTick);
+                    tickWheel.schedule(ticker);
+                } else {
+                    ticker.suspend(currentTick);
+                    tickWheel.unschedule(ticker);
+                }
+            }
+
+            Debugger.getInstance().debug(2, "Chunk " + chunk.getX() + "," + chunk.getZ() + " ticking = " + loaded + ": " + bucket);
+        }
     }
 
     @Nonnull
-    private Map<String, BaseSTBBlock> getWorldIndex(@Nonnull World w) {
-        Map<String, BaseSTBBlock> index = blockIndex.get(w.getUID());
+    private BlockIndex getWorldIndex(@Nonnull World w) {
+        BlockIndex index = blockIndex.get(w.getUID());
 
         if (index == null) {
-            index = new HashMap<>();
+            index = new BlockIndex();
             blockIndex.put(w.getUID(), index);
         }
 
@@ -150,13 +481,11 @@ public final class LocationManager {
         }
 
         stb.setLocation(blockAccess, l);
-
-        String locStr = MiscUtil.formatLocation(l);
-        getWorldIndex(l.getWorld()).put(locStr, stb);
+        getWorldIndex(l.getWorld()).add(stb, l);
         stb.preRegister(blockAccess, l, isPlacing);
 
         if (isPlacing) {
-            addPendingDatabaseOperation(l, locStr, DatabaseOperation.INSERT);
+            addPendingDatabaseOperation(l.getWorld(), l.getBlockX(), l.getBlockY(), l.getBlockZ(), DatabaseOperation.UPSERT, stb);
         }
 
         if (stb.getTickRate() > 0) {
@@ -167,15 +496,36 @@ public final class LocationManager {
     }
 
     public void updateLocation(Location l) {
-        addPendingDatabaseOperation(l, MiscUtil.formatLocation(l), DatabaseOperation.UPDATE);
+        BaseSTBBlock stb = getWorldIndex(l.getWorld()).getBlock(BlockPosition.getBlockKey(l));
+
+        if (stb != null) {
+            updateBlock(stb);
+        } else {
+            Debugger.getInstance().debug("ignoring update for non-existent STB block @ " + l);
+        }
+    }
+
+    /**
+     * Mark the given block as needing to be saved. This only flags the block as dirty;
+     * further calls are no-ops until the next save collects it, which makes it cheap
+     * enough to call on every change of a block's state.
+     *
+     * @param stb
+     *            the block which has been modified
+     */
+    public void updateBlock(@Nonnull BaseSTBBlock stb) {
+        if (!stb.isDirty()) {
+            stb.setDirty(blockAccess, true);
+            dirtyBlocks.add(stb);
+        }
     }
 
     public void unregisterLocation(Location l, BaseSTBBlock stb) {
         if (stb != null) {
             stb.onBlockUnregistered(l);
-            String locStr = MiscUtil.formatLocation(l);
-            addPendingDatabaseOperation(l, locStr, DatabaseOperation.DELETE);
-            getWorldIndex(l.getWorld()).remove(locStr);
+            removeTicker(stb);
+            addPendingDatabaseOperation(l.getWorld(), l.getBlockX(), l.getBlockY(), l.getBlockZ(), DatabaseOperation.DELETE, null);
+            getWorldIndex(l.getWorld()).remove(stb, l);
             Debugger.getInstance().debug("Unregistered " + stb + " @ " + l);
         } else {
             LogUtils.warning("Attempt to unregister non-existent STB block @ " + l);
@@ -195,47 +545,46 @@ public final class LocationManager {
 
         // TODO: translate multi-block structures
 
-        String locStr = MiscUtil.formatLocation(oldLoc);
-        addPendingDatabaseOperation(oldLoc, locStr, DatabaseOperation.DELETE);
-        getWorldIndex(oldLoc.getWorld()).remove(locStr);
+        addPendingDatabaseOperation(oldLoc.getWorld(), oldLoc.getBlockX(), oldLoc.getBlockY(), oldLoc.getBlockZ(), DatabaseOperation.DELETE, null);
+        getWorldIndex(oldLoc.getWorld()).remove(stb, oldLoc);
+
+        // the block may be moving into a different chunk
+        ScheduledTicker ticker = tickerIndex.get(stb);
+
+        if (ticker != null) {
+            detachTicker(ticker, oldLoc.getWorld());
+        }
 
         stb.moveTo(blockAccess, oldLoc, newLoc);
 
-        locStr = MiscUtil.formatLocation(newLoc);
-        addPendingDatabaseOperation(newLoc, locStr, DatabaseOperation.INSERT);
-        getWorldIndex(newLoc.getWorld()).put(locStr, stb);
+        addPendingDatabaseOperation(newLoc.getWorld(), newLoc.getBlockX(), newLoc.getBlockY(), newLoc.getBlockZ(), DatabaseOperation.UPSERT, stb);
+        getWorldIndex(newLoc.getWorld()).add(stb, newLoc);
+
+        if (ticker != null) {
+            placeTicker(ticker, newLoc);
+        }
 
         Debugger.getInstance().debug("moved " + stb + " from " + oldLoc + " to " + newLoc);
     }
 
-    private void addPendingDatabaseOperation(Location l, String locStr, DatabaseOperation op) {
-        UpdateRecord existingRec = pendingUpdates.get(locStr);
+    private void addPendingDatabaseOperation(@Nonnull World w, int x, int y, int z, @Nonnull DatabaseOperation op, @Nullable BaseSTBBlock stb) {
+        Preconditions.checkArgument(op == DatabaseOperation.UPSERT || op == DatabaseOperation.DELETE, "Unexpected operation: " + op);
+        Preconditions.checkArgument((op == DatabaseOperation.UPSERT) == (stb != null), "An upsert (and only an upsert) needs a block");
 
-        switch (op) {
-            case INSERT:
-                if (existingRec == null) {
-                    // brand new insertion
-                    pendingUpdates.put(locStr, new UpdateRecord(DatabaseOperation.INSERT, l));
-                } else if (existingRec.getOp() == DatabaseOperation.DELETE) {
-                    // re-inserting where a block was just deleted
-                    pendingUpdates.put(locStr, new UpdateRecord(DatabaseOperation.UPDATE, l));
-                }
-                break;
-            case UPDATE:
-                if (existingRec == null || existingRec.getOp() != DatabaseOperation.INSERT) {
-                    pendingUpdates.put(locStr, new UpdateRecord(DatabaseOperation.UPDATE, l));
-                }
-                break;
-            case DELETE:
-                if (existingRec != null && existingRec.getOp() == DatabaseOperation.INSERT) {
-                    // remove a recent insertion
-                    pendingUpdates.remove(locStr);
-                } else {
-                    pendingUpdates.put(locStr, new UpdateRecord(DatabaseOperation.DELETE, l));
-                }
-                break;
-            default:
-                throw new IllegalArgumentException("Unexpected operation: " + op);
+        UUID worldID = w.getUID();
+        LongObjectMap<UpdateRecord> updates = pendingUpdates.get(worldID);
+
+        if (updates == null) {
+            updates = new LongObjectMap<>();
+            pendingUpdates.put(worldID, updates);
+        }
+
+        // the DB writes are idempotent, so only the latest operation for a location matters
+        long key = BlockPosition.getBlockKey(x, y, z);
+        UpdateRecord existingRec = updates.get(key);
+
+        if (existingRec == null || existingRec.getOp() != op || existingRec.getBlock() != stb) {
+            updates.put(key, new UpdateRecord(op, worldID, x, y, z, stb));
         }
     }
 
@@ -266,21 +615,118 @@ public final class LocationManager {
      */
     @Nullable
     public BaseSTBBlock get(Location l, boolean checkSigns) {
-        Block b = l.getBlock();
+        BaseSTBBlock stb = get(l.getWorld(), l.getBlockX(), l.getBlockY(), l.getBlockZ());
+
+        if (stb == null && checkSigns) {
+            Block b = l.getBlock();
+
+            if (Tag.WALL_SIGNS.isTagged(b.getType())) {
+                WallSign sign = (WallSign) b.getBlockData();
+                b = b.getRelative(sign.getFacing().getOppositeFace());
+                stb = get(b.getWorld(), b.getX(), b.getY(), b.getZ());
+            }
+        }
+
+        return stb;
+    }
 
-        if (checkSigns && Tag.WALL_SIGNS.isTagged(b.getType())) {
-            WallSign sign = (WallSign) b.getBlockData();
-            b = b.getRelative(sign.getFacing().getOppositeFace());
+    /**
+     * Get the STB block at the given position, which may be any of the positions
+     * occupied by a multi-block structure. This only consults the in-memory index,
+     * and never touches the world.
+     *
+     * @param world
+     *            the world to check in
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     *
+     * @return the STB block at the given position, or null if there is none
+     */
+    @Nullable
+    public BaseSTBBlock get(@Nonnull World world, int x, int y, int z) {
+        BlockIndex index = blockIndex.get(world.getUID());
+
+        if (index == null) {
+            return null;
         }
 
-        BaseSTBBlock stb = (BaseSTBBlock) STBUtil.getMetadataValue(b, BaseSTBBlock.STB_BLOCK);
+        BaseSTBBlock stb = index.get(x, y, z);
 
-        if (stb != null) {
-            return stb;
-        } else {
-            // perhaps it's part of a multi-block structure
-            return (BaseSTBBlock) STBUtil.getMetadataValue(b, BaseSTBBlock.STB_MULTI_BLOCK);
+        // a block which is being broken has already gone, as far as lookups are concerned
+        return stb == null || stb.isPendingRemoval() ? null : stb;
+    }
+
+    /**
+     * Get the STB block at the given block's position. This only consults the
+     * in-memory index, and never touches the world.
+     *
+     * @param b
+     *            the block to check at
+     *
+     * @return the STB block at the given block's position, or null if there is none
+     */
+    @Nullable
+    public BaseSTBBlock get(@Nonnull Block b) {
+        return get(b.getWorld(), b.getX(), b.getY(), b.getZ());
+    }
+
+    /**
+     * Check if there could be an STB block at, or directly next to, the given block.
+     * This is a cheap check, which never touches the world; a false result means
+     * that there is definitely no STB block there, but a true result may be wrong.
+     *
+     * @param b
+     *            the block to check around
+     *
+     * @return false if there is definitely no STB block at or adjacent to the block
+     */
+    public boolean mayHaveBlockNear(@Nonnull Block b) {
+        int x = b.getX();
+        int y = b.getY();
+        int z = b.getZ();
+
+        if (isLoadingAny()) {
+            World w = b.getWorld();
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+
+            // the neighbours on a chunk's edge are in the next chunk over
+            if (isChunkLoading(w, chunkX, chunkZ) || isChunkLoading(w, (x - 1) >> 4, chunkZ) || isChunkLoading(w, (x + 1) >> 4, chunkZ) || isChunkLoading(w, chunkX, (z - 1) >> 4) || isChunkLoading(w, chunkX, (z + 1) >> 4)) {
+                return true;
+            }
+        }
+
+        BlockIndex index = blockIndex.get(b.getWorld().getUID());
+
+        if (index == null) {
+            return false;
         }
+
+        // a neighbour can only be in a different chunk section when the block is on the section's edge
+        return index.mayContain(x, y, z) || index.mayContain(x - 1, y, z) || index.mayContain(x + 1, y, z) || index.mayContain(x, y - 1, z) || index.mayContain(x, y + 1, z) || index.mayContain(x, y, z - 1) || index.mayContain(x, y, z + 1);
+    }
+
+    /**
+     * Get the STB block of the given type at the given block's position. This only
+     * consults the in-memory index, and never touches the world.
+     *
+     * @param b
+     *            the block to check at
+     * @param type
+     *            the type of STB block required
+     * @param <T>
+     *            a subclass of BaseSTBBlock
+     *
+     * @return the STB block at the given block's position, or null if no matching item
+     */
+    @Nullable
+    public <T extends BaseSTBBlock> T get(@Nonnull Block b, @Nonnull Class<T> type) {
+        BaseSTBBlock stbBlock = get(b);
+        return type.isInstance(stbBlock) ? type.cast(stbBlock) : null;
     }
 
     /**
@@ -327,7 +773,9 @@ public final class LocationManager {
     }
 
     /**
-     * Get all the STB blocks in the given chunk
+     * Get all the STB blocks in the given chunk. The returned list is a read-only view,
+     * which changes as blocks are registered and unregistered; copy it first if blocks
+     * may be added to or removed from the chunk while iterating over it.
      *
      * @param chunk
      *            the chunk to check
@@ -336,147 +784,452 @@ public final class LocationManager {
      */
     @Nonnull
     public List<BaseSTBBlock> get(@Nonnull Chunk chunk) {
-        List<BaseSTBBlock> res = new ArrayList<>();
+        BlockIndex index = blockIndex.get(chunk.getWorld().getUID());
+        return index == null ? Collections.emptyList() : index.getChunkBlocks(chunk.getX(), chunk.getZ());
+    }
 
-        for (BaseSTBBlock stb : listBlocks(chunk.getWorld(), false)) {
-            PersistableLocation pLoc = stb.getPersistableLocation();
+    public void tick() {
+        long now = System.nanoTime();
+
+        currentTick++;
+        tickWheel.collectDue(currentTick, dueTickers);
 
-            if ((int) pLoc.getX() >> 4 == chunk.getX() && (int) pLoc.getZ() >> 4 == chunk.getZ()) {
-                res.add(stb);
+        for (int i = 0; i < dueTickers.size(); i++) {
+            ScheduledTicker ticker = dueTickers.get(i);
+
+            // a ticker still waiting from an earlier tick doesn't need queueing twice
+            if (!ticker.isQueued()) {
+                ticker.queue(currentTick);
+                runQueue.add(ticker);
             }
         }
 
-        return res;
-    }
+        dueTickers.clear();
 
-    public void tick() {
-        long now = System.nanoTime();
+        while (!runQueue.isEmpty()) {
+            if (tickBudget > 0 && System.nanoTime() - now > tickBudget) {
+                // out of time; whatever is left runs first next tick
+                overrunCount++;
+                Debugger.getInstance().debug(2, "Tick budget exceeded, carrying over " + runQueue.size() + " tickers");
+                break;
+            }
 
-        for (World world : Bukkit.getWorlds()) {
-            tickWorld(world);
+            ScheduledTicker ticker = runQueue.poll();
+            ticker.dequeue();
+            runTicker(ticker);
         }
 
         totalTicks++;
         totalTime += System.nanoTime() - now;
 
-        if (System.currentTimeMillis() - lastSave > saveInterval) {
-            save();
+        if (saveQueue.isEmpty() && System.currentTimeMillis() - lastSave > saveInterval) {
+            startSave();
+        }
+
+        if (!saveQueue.isEmpty()) {
+            continueSave(saveBatchSize, saveBudget);
+        }
+
+        if (!waitingLoads.isEmpty()) {
+            startWaitingLoads();
+        }
+
+        if (!activeLoads.isEmpty()) {
+            continueLoad(loadBudget);
         }
     }
 
-    private void tickWorld(@Nonnull World world) {
-        Set<BaseSTBBlock> tickerSet = allTickers.get(world.getUID());
+    private void runTicker(@Nonnull ScheduledTicker ticker) {
+        BaseSTBBlock stb = ticker.getBlock();
 
-        if (tickerSet != null) {
-            Iterator<BaseSTBBlock> iter = tickerSet.iterator();
+        if (stb.isPendingRemoval()) {
+            Debugger.getInstance().debug("Removing block " + stb + " from tickers list");
+            removeTicker(stb);
+            return;
+        }
 
-            while (iter.hasNext()) {
-                BaseSTBBlock stb = iter.next();
+        // the age the ticker had when it fell due, even if it was carried over since
+        long age = ticker.getQueuedAge();
 
-                if (stb.isPendingRemoval()) {
-                    Debugger.getInstance().debug("Removing block " + stb + " from tickers list");
-                    iter.remove();
-                } else {
-                    PersistableLocation pLoc = stb.getPersistableLocation();
-                    int x = (int) pLoc.getX();
-                    int z = (int) pLoc.getZ();
+        // an earlier ticker may have unloaded this one's chunk, or changed its rate
+        if (!ticker.isScheduled() || age % ticker.getRate() != 0) {
+            return;
+        }
 
-                    if (world.isChunkLoaded(x >> 4, z >> 4)) {
-                        stb.tick();
+        runningTicker = ticker;
 
-                        if (stb.getTicksLived() % stb.getTickRate() == 0) {
-                            stb.onServerTick();
-                        }
-                    }
-                }
-            }
+        try {
+            stb.onServerTick();
+        } finally {
+            runningTicker = null;
+        }
+
+        if (stb.getTickRate() != ticker.getRate() && tickerIndex.get(stb) == ticker) {
+            updateTickRate(stb);
         }
     }
 
+    /**
+     * Write all pending changes over to the DB writer thread right away, including
+     * the rest of any save which is already in progress. Normally saving is spread
+     * out over several ticks; this is for when that can't wait, e.g. the plugin
+     * being disabled.
+     */
     public void save() {
-        // send any pending updates over to the DB updater thread via a BlockingQueue
-        if (!pendingUpdates.isEmpty()) {
-            // TODO: may want to do this over a few ticks to reduce the risk of lag spikes
-            for (UpdateRecord rec : pendingUpdates.values()) {
-                BaseSTBBlock stb = get(rec.getLocation());
-
-                if (stb == null && rec.getOp() != DatabaseOperation.DELETE) {
-                    LogUtils.severe("STB block @ " + rec.getLocation() + " is null, but should not be!");
-                    continue;
-                }
+        startSave();
+        continueSave(0, 0);
+    }
 
-                if (stb != null) {
-                    rec.setType(stb.getItemTypeID());
-                    rec.setData(stb.freeze().saveToString());
-                }
+    private void startSave() {
+        collectDirtyBlocks();
 
-                updateQueue.add(rec);
+        // forget about the writes from earlier saves which are in the DB by now
+        for (LongObjectMap<LongObjectMap<UpdateRecord>> chunks : unsavedUpdates.values()) {
+            for (LongObjectMap<UpdateRecord> updates : chunks.values()) {
+                // chunks with nothing left in them are dropped, so there's always a first record
+                UpdateRecord first = updates.values().get(0);
+                pruneUnsavedUpdates(chunks, BlockPosition.getChunkKey(first.getX() >> 4, first.getZ() >> 4));
+            }
+        }
+
+        // the records are snapshotted later; anything which changes in the meantime
+        // is saved with its latest state, or caught by the next save
+        for (LongObjectMap<UpdateRecord> updates : pendingUpdates.values()) {
+            for (UpdateRecord rec : updates.values()) {
+                queueForSave(rec);
             }
 
-            updateQueue.add(UpdateRecord.commitRecord());
-            pendingUpdates.clear();
+            updates.clear();
         }
 
         lastSave = System.currentTimeMillis();
     }
 
-    public void loadFromDatabase(@Nonnull World world, @Nullable String wantedType) throws SQLException {
-        ResultSet rs = getResultsFor(world, wantedType);
+    private void collectDirtyBlocks() {
+        // dirty blocks mostly come in runs from the same world, so the world is only
+        // looked up again when the name changes
+        String worldName = null;
+        World w = null;
+        BlockIndex index = null;
 
-        while (rs.next()) {
-            String type = rs.getString(5);
+        for (int i = 0; i < dirtyBlocks.size(); i++) {
+            BaseSTBBlock stb = dirtyBlocks.get(i);
 
-            if (deferredBlocks.contains(type) && !type.equals(wantedType)) {
+            if (!stb.isDirty()) {
+                // already saved when it was unloaded
                 continue;
             }
 
-            int x = rs.getInt(2);
-            int y = rs.getInt(3);
-            int z = rs.getInt(4);
-            String data = rs.getString(6);
+            stb.setDirty(blockAccess, false);
+            PersistableLocation pLoc = stb.getPersistableLocation();
 
-            try {
-                YamlConfiguration conf = new YamlConfiguration();
-                conf.loadFromString(data);
-                BaseSTBItem stbItem = SensibleToolbox.getItemRegistry().getItemById(type, conf);
+            if (pLoc == null) {
+                continue;
+            }
+
+            if (!pLoc.getWorldName().equals(worldName)) {
+                worldName = pLoc.getWorldName();
+                w = Bukkit.getWorld(worldName);
+                index = w == null ? null : blockIndex.get(w.getUID());
+            }
+
+            if (index != null) {
+                int x = (int) pLoc.getX();
+                int y = (int) pLoc.getY();
+                int z = (int) pLoc.getZ();
+
+                // a block which has since been removed must not override its pending deletion
+                if (index.getBlock(BlockPosition.getBlockKey(x, y, z)) == stb) {
+                    addPendingDatabaseOperation(w, x, y, z, DatabaseOperation.UPSERT, stb);
+                }
+            }
+        }
+
+        dirtyBlocks.clear();
+    }
+
+    /**
+     * Snapshot the blocks for records of the save in progress and send them over to the DB updater
+     * thread via a BlockingQueue. Once the last record is sent, the DB thread is told
+     * to commit, so the DB never sees a partial save.
+     *
+     * @param maxRecords
+     *            the maximum number of records to send, 0 for no limit
+     * @param budget
+     *            the maximum time to spend (in ns), 0 for no limit
+     */
+    private void continueSave(int maxRecords, long budget) {
+        if (saveQueue.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int n = 0;
+
+        while (!saveQueue.isEmpty()) {
+            if ((maxRecords > 0 && n >= maxRecords) || (budget > 0 && System.nanoTime() - start > budget)) {
+                Debugger.getInstance().debug(2, "Save in progress, " + saveQueue.size() + " records left");
+                return;
+            }
+
+            UpdateRecord rec = saveQueue.poll();
+            n++;
+
+            if (rec.hasSnapshot()) {
+                // snapshotted when its block was unloaded
+                updateQueue.add(rec);
+                continue;
+            }
+
+            BaseSTBBlock stb = rec.getBlock();
+
+            if (stb != null && !isRegisteredAt(stb, rec) && getPendingUpdate(rec.getWorldID(), BlockPosition.getBlockKey(rec.getX(), rec.getY(), rec.getZ())) != null) {
+                // the block was removed or moved after the save started; that is recorded separately
+                Debugger.getInstance().debug("STB block " + stb + " went away before it could be saved: " + rec);
+                rec.markDone();
+                continue;
+            }
+
+            // a block unloaded after the save started was already clean, so only this record
+            // has its latest state; the block object keeps that, so it can still be snapshotted
+            if (stb != null) {
+                rec.setType(stb.getItemTypeID());
+                // only a copy is taken here, the encoding is done by the DB thread
+                rec.setSnapshot(stb.snapshot());
+            }
+
+            updateQueue.add(rec);
+        }
+
+        updateQueue.add(UpdateRecord.commitRecord());
+    }
+
+    private boolean isRegisteredAt(@Nonnull BaseSTBBlock stb, @Nonnull UpdateRecord rec) {
+        BlockIndex index = blockIndex.get(rec.getWorldID());
+        return index != null && index.getBlock(BlockPosition.getBlockKey(rec.getX(), rec.getY(), rec.getZ())) == stb;
+    }
+
+    @Nullable
+    private UpdateRecord getPendingUpdate(@Nonnull UUID worldID, long key) {
+        LongObjectMap<UpdateRecord> updates = pendingUpdates.get(worldID);
+        return updates == null ? null : updates.get(key);
+    }
 
-                if (stbItem != null) {
-                    Location l = new Location(world, x, y, z);
+    private void queueForSave(@Nonnull UpdateRecord rec) {
+        saveQueue.add(rec);
+
+        LongObjectMap<LongObjectMap<UpdateRecord>> chunks = unsavedUpdates.computeIfAbsent(rec.getWorldID(), k -> new LongObjectMap<>());
+        long chunkKey = BlockPosition.getChunkKey(rec.getX() >> 4, rec.getZ() >> 4);
+        LongObjectMap<UpdateRecord> updates = chunks.get(chunkKey);
+
+        if (updates == null) {
+            updates = new LongObjectMap<>();
+            chunks.put(chunkKey, updates);
+        }
+
+        updates.put(BlockPosition.getBlockKey(rec.getX(), rec.getY(), rec.getZ()), rec);
+    }
+
+    /**
+     * Check if a write for the given location is pending, or on its way to the DB. If
+     * so, the DB row for it (if any) may be out of date.
+     *
+     * @param l
+     *            the location
+     * @return true if there is a write for the location which isn't done yet
+     */
+    private boolean hasUnsavedUpdate(@Nonnull Location l) {
+        UUID worldID = l.getWorld().getUID();
+        long key = BlockPosition.getBlockKey(l);
+
+        if (getPendingUpdate(worldID, key) != null) {
+            return true;
+        }
+
+        LongObjectMap<LongObjectMap<UpdateRecord>> chunks = unsavedUpdates.get(worldID);
+        LongObjectMap<UpdateRecord> updates = chunks == null ? null : chunks.get(BlockPosition.getChunkKey(l.getBlockX() >> 4, l.getBlockZ() >> 4));
+        UpdateRecord rec = updates == null ? null : updates.get(key);
+
+        return rec != null && !rec.isDone();
+    }
+
+    /**
+     * Check if any write for the given chunk is on its way to the DB, forgetting about
+     * those which are done along the way.
+     *
+     * @param worldID
+     *            the world's UUID
+     * @param chunkX
+     *            the chunk's X coordinate
+     * @param chunkZ
+     *            the chunk's Z coordinate
+     * @return true if there is a write in the chunk which isn't done yet
+     */
+    private boolean hasUnsavedUpdates(@Nonnull UUID worldID, int chunkX, int chunkZ) {
+        LongObjectMap<LongObjectMap<UpdateRecord>> chunks = unsavedUpdates.get(worldID);
+        return chunks != null && pruneUnsavedUpdates(chunks, BlockPosition.getChunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Forget about the records for the given chunk which the DB writer is done with,
+     * and the chunk itself if that leaves none.
+     *
+     * @param chunks
+     *            the unsaved records of a world, by chunk key
+     * @param chunkKey
+     *            the chunk key
+     * @return true if any of the chunk's records aren't done yet
+     */
+    private boolean pruneUnsavedUpdates(@Nonnull LongObjectMap<LongObjectMap<UpdateRecord>> chunks, long chunkKey) {
+        LongObjectMap<UpdateRecord> updates = chunks.get(chunkKey);
 
-                    if (stbItem instanceof BaseSTBBlock) {
-                        registerLocation(l, (BaseSTBBlock) stbItem, false);
-                    } else {
-                        LogUtils.severe("STB item " + type + " @ " + l + " is not a block!");
+        if (updates == null) {
+            return false;
+        }
+
+        for (UpdateRecord rec : updates.values()) {
+            if (rec.isDone()) {
+                updates.remove(BlockPosition.getBlockKey(rec.getX(), rec.getY(), rec.getZ()));
+            }
+        }
+
+        if (updates.isEmpty()) {
+            chunks.remove(chunkKey);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void startWaitingLoads() {
+        Iterator<WorldLoad> iter = waitingLoads.iterator();
+
+        while (iter.hasNext()) {
+            WorldLoad load = iter.next();
+
+            if (load.isCancelled()) {
+                iter.remove();
+            } else if (!hasUnsavedUpdates(load.getWorld().getUID(), load.getChunkX(), load.getChunkZ())) {
+                iter.remove();
+                startLoad(load);
+            }
+        }
+    }
+
+    /**
+     * Start loading some saved blocks from the database. The blocks are fetched in the
+     * background, and registered over the next few server ticks.
+     *
+     * @param load
+     *            the blocks to load
+     */
+    private void startLoad(@Nonnull WorldLoad load) {
+        activeLoads.add(load);
+        loaderService.execute(load);
+    }
+
+    /**
+     * Register blocks which the loader thread has passed over, until there are no more
+     * waiting, or the time budget runs out.
+     *
+     * @param budget
+     *            the maximum time to spend (in ns), 0 for no limit
+     */
+    private void continueLoad(long budget) {
+        long start = System.nanoTime();
+        LoadRecord rec;
+
+        while ((rec = loadQueue.poll()) != null) {
+            if (rec.isFinished()) {
+                rec.getLoad().markFinished();
+                activeLoads.remove(rec.getLoad());
+                Debugger.getInstance().debug("finished loading STB blocks for " + rec.getLoad());
+            } else if (!rec.getLoad().isCancelled()) {
+                registerLoadedBlock(rec);
+            }
+
+            if (budget > 0 && System.nanoTime() - start > budget) {
+                Debugger.getInstance().debug(2, "Load in progress, " + loadQueue.size() + " blocks waiting");
+                return;
+            }
+        }
+    }
+
+    private void registerLoadedBlock(@Nonnull LoadRecord rec) {
+        String type = rec.getType();
+        String wantedType = rec.getLoad().getWantedType();
+
+        if (deferredBlocks.contains(type) && !type.equals(wantedType)) {
+            return;
+        }
+
+        Location l = rec.getLocation();
+
+        if (!rec.getLoad().isChunkLoad() && !keepLoaded.contains(type) && !isChunkLoaded(l)) {
+            // it will be loaded along with its chunk
+            return;
+        }
+
+        if (getWorldIndex(l.getWorld()).getBlock(BlockPosition.getBlockKey(l)) != null) {
+            // already loaded, e.g. by a type load overlapping a chunk load, or with the chunk reloaded
+            Debugger.getInstance().debug("skipping load of STB block " + type + " @ " + l + ", already registered");
+            return;
+        }
+
+        if (hasUnsavedUpdate(l)) {
+            // the row is out of date; the block has been removed since, or is in memory anyway
+            Debugger.getInstance().debug("skipping load of STB block " + type + " @ " + l + ", changed since it was saved");
+            return;
+        }
+
+        try {
+            BaseSTBItem stbItem = SensibleToolbox.getItemRegistry().getItemById(type, rec.getConfiguration());
+
+            if (stbItem != null) {
+                if (stbItem instanceof BaseSTBBlock) {
+                    if (l.getWorld().isChunkLoaded(l.getBlockX() >> 4, l.getBlockZ() >> 4) && l.getBlock().getType() != stbItem.getMaterial()) {
+                        // broken or replaced some other way while it couldn't be recognised, e.g. by another plugin
+                        LogUtils.warning("STB block " + type + " @ " + l + " is no longer there, dropping it");
+                        addPendingDatabaseOperation(l.getWorld(), l.getBlockX(), l.getBlockY(), l.getBlockZ(), DatabaseOperation.DELETE, null);
+                        return;
                     }
+
+                    registerLocation(l, (BaseSTBBlock) stbItem, false);
                 } else {
-                    // defer it - should hopefully be registered by another plugin later
-                    Debugger.getInstance().debug("deferring load for unrecognised block type '" + type + "'");
-                    deferBlockLoad(type);
+                    LogUtils.severe("STB item " + type + " @ " + l + " is not a block!");
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
-                LogUtils.severe(String.format("Can't load STB block at %s,%d,%d,%d: %s", world.getName(), x, y, z, e.getMessage()));
+            } else {
+                // defer it - should hopefully be registered by another plugin later
+                Debugger.getInstance().debug("deferring load for unrecognised block type '" + type + "'");
+                deferBlockLoad(type);
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogUtils.severe(String.format("Can't load STB block at %s,%d,%d,%d: %s", l.getWorld().getName(), l.getBlockX(), l.getBlockY(), l.getBlockZ(), e.getMessage()));
         }
+    }
 
-        rs.close();
+    void putLoadRecord(@Nonnull LoadRecord rec) throws InterruptedException {
+        loadQueue.put(rec);
     }
 
     @Nonnull
-    private ResultSet getResultsFor(@Nonnull World world, @Nullable String wantedType) throws SQLException {
-        if (wantedType == null) {
-            queryStmt.setString(1, world.getUID().toString());
-            return queryStmt.executeQuery();
+    ResultSet getResultsFor(@Nonnull WorldLoad load) throws SQLException {
+        if (load.isChunkLoad()) {
+            queryChunkStmt.setString(1, load.getWorld().getUID().toString());
+            queryChunkStmt.setInt(2, load.getChunkX());
+            queryChunkStmt.setInt(3, load.getChunkZ());
+            return queryChunkStmt.executeQuery();
         } else {
-            queryTypeStmt.setString(1, world.getUID().toString());
-            queryTypeStmt.setString(2, wantedType);
+            queryTypeStmt.setString(1, load.getWorld().getUID().toString());
+            queryTypeStmt.setString(2, load.getWantedType());
             return queryTypeStmt.executeQuery();
         }
     }
 
-    public void load() throws SQLException {
+    public void load() {
         for (World w : Bukkit.getWorlds()) {
-            loadFromDatabase(w, null);
+            loadWorld(w);
         }
     }
 
@@ -485,18 +1238,17 @@ public final class LocationManager {
     }
 
     /**
-     * Load all blocks for the given block type. Called when a block is registered after the
+     * Load all blocks for the given block type, in the chunks which are loaded (or everywhere,
+     * if the type is always kept loaded). Called when a block is registered after the
      * initial DB load is done.
      *
      * @param type
      *            the block type
-     * @throws SQLException
-     *             if there is a problem loading from the DB
      */
-    public void loadDeferredBlocks(@Nonnull String type) throws SQLException {
+    public void loadDeferredBlocks(@Nonnull String type) {
         if (deferredBlocks.contains(type)) {
             for (World world : Bukkit.getWorlds()) {
-                loadFromDatabase(world, type);
+                startLoad(new WorldLoad(this, world, type));
             }
 
             deferredBlocks.remove(type);
@@ -512,28 +1264,44 @@ public final class LocationManager {
     public void unloadWorld(@Nonnull World world) {
         save();
 
-        Map<String, BaseSTBBlock> map = blockIndex.get(world.getUID());
+        for (WorldLoad load : activeLoads) {
+            if (load.getWorld().equals(world)) {
+                load.cancel();
+            }
+        }
 
-        if (map != null) {
-            map.clear();
-            blockIndex.remove(world.getUID());
+        waitingLoads.removeIf(load -> load.getWorld().equals(world));
+        chunkLoads.remove(world.getUID());
+
+        Map<Long, TickerBucket> buckets = allTickers.remove(world.getUID());
+
+        if (buckets != null) {
+            for (TickerBucket bucket : buckets.values()) {
+                for (ScheduledTicker ticker : bucket.getTickers()) {
+                    tickWheel.unschedule(ticker);
+                    tickerIndex.remove(ticker.getBlock());
+                }
+            }
         }
+
+        blockIndex.remove(world.getUID());
     }
 
     /**
-     * The given world has just become loaded.
+     * The given world has just become loaded. Only the blocks in its loaded chunks, and
+     * those which are always kept loaded, are loaded now; the rest are loaded along with
+     * their chunks.
      *
      * @param world
      *            the world that has been loaded
      */
     public void loadWorld(@Nonnull World world) {
-        if (!blockIndex.containsKey(world.getUID())) {
-            try {
-                loadFromDatabase(world, null);
-            } catch (SQLException e) {
-                e.printStackTrace();
-                LogUtils.severe("can't load STB data for world " + world.getName() + ": " + e.getMessage());
-            }
+        for (Chunk chunk : world.getLoadedChunks()) {
+            loadChunk(chunk);
+        }
+
+        for (String type : keepLoaded) {
+            startLoad(new WorldLoad(this, world, type));
         }
     }
 
@@ -549,8 +1317,8 @@ public final class LocationManager {
      */
     @Nonnull
     public List<BaseSTBBlock> listBlocks(World world, boolean sorted) {
-        Collection<BaseSTBBlock> list = getWorldIndex(world).values();
-        return sorted ? MiscUtil.asSortedList(list) : new ArrayList<>(list);
+        List<BaseSTBBlock> list = getWorldIndex(world).getBlocks();
+        return sorted ? MiscUtil.asSortedList(list) : list;
     }
 
     /**
@@ -563,6 +1331,76 @@ public final class LocationManager {
         return totalTime / totalTicks;
     }
 
+    /**
+     * Get the number of server ticks on which the tick budget ran out before all due
+     * blocks had been ticked.
+     *
+     * @return the number of overrunning ticks since the plugin started up
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Get the number of due blocks which have been carried over to the next server tick
+     * because the tick budget ran out.
+     *
+     * @return the current ticker backlog
+     */
+    public int getTickBacklog() {
+        return runQueue.size();
+    }
+
+    /**
+     * Set the tick budget; the maximum time which may be spent ticking blocks on any one
+     * server tick. Blocks which are due but don't get ticked in time are carried over to
+     * the next server tick, ahead of any blocks which become due then.
+     *
+     * @param tickBudget
+     *            the tick budget, in nanoseconds; 0 for no limit
+     */
+    public void setTickBudget(long tickBudget) {
+        this.tickBudget = tickBudget;
+    }
+
+    /**
+     * Set the load budget; the maximum time which may be spent registering blocks loaded
+     * from the DB on any one server tick.
+     *
+     * @param loadBudget
+     *            the load budget, in nanoseconds; 0 for no limit
+     */
+    public void setLoadBudget(long loadBudget) {
+        this.loadBudget = loadBudget;
+    }
+
+    /**
+     * Set how blocks are loaded and unloaded along with their chunks.
+     *
+     * @param unloadBlocks
+     *            if true, blocks are dropped from memory when their chunk is unloaded
+     * @param keepLoaded
+     *            the types of block which are always kept loaded, whether or not their chunk is
+     */
+    public void setChunkLoading(boolean unloadBlocks, @Nonnull Collection<String> keepLoaded) {
+        this.unloadBlocks = unloadBlocks;
+        this.keepLoaded.clear();
+        this.keepLoaded.addAll(keepLoaded);
+    }
+
+    /**
+     * Set the limits on how much of a save may be done on any one server tick.
+     *
+     * @param saveBatchSize
+     *            the maximum number of blocks to snapshot per tick, 0 for no limit
+     * @param saveBudget
+     *            the maximum time to spend snapshotting per tick, in nanoseconds; 0 for no limit
+     */
+    public void setSaveLimits(int saveBatchSize, long saveBudget) {
+        this.saveBatchSize = saveBatchSize;
+        this.saveBudget = saveBudget;
+    }
+
     /**
      * Set the save interval; any changes will be written to the persisted DB this often.
      *
@@ -579,16 +1417,33 @@ public final class LocationManager {
      * be called when the plugin is being disabled.
      */
     public void shutdown() {
+        for (WorldLoad load : activeLoads) {
+            load.cancel();
+        }
+
+        waitingLoads.clear();
+
+        // anything not yet registered is still safely in the DB
+        loaderService.shutdownNow();
+        loadQueue.clear();
         updateQueue.add(UpdateRecord.finishingRecord());
 
         try {
             // 5 seconds is hopefully enough for the DB thread to finish its work
             updaterTask.join(5000);
+            // the loader thread only has to notice that it's been interrupted
+            loaderService.awaitTermination(1, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             e.printStackTrace();
             Thread.currentThread().interrupt();
         }
 
+        try {
+            databaseManager.getReadConnection().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
         try {
             databaseManager.getConnection().close();
         } catch (SQLException e) {
@@ -0,0 +1,114 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import javax.annotation.Nonnull;
+
+import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
+
+/**
+ * The scheduling state of a single ticking STB block. While the block's chunk is
+ * loaded, the block's age in ticks is {@code currentTick - base}; the block is due
+ * whenever that age is a multiple of its tick rate.
+ *
+ * @see TickWheel
+ */
+final class ScheduledTicker {
+
+    private final BaseSTBBlock block;
+    private TickerBucket bucket;
+    private int rate;
+    private long base;
+    private long suspendedAge;
+    private boolean queued;
+    private long queuedAge;
+    // position in the wheel slot holding this ticker, or -1 if not currently scheduled
+    int slotIndex = -1;
+
+    ScheduledTicker(@Nonnull BaseSTBBlock block, int rate, long age) {
+        this.block = block;
+        this.rate = rate;
+        this.suspendedAge = age;
+    }
+
+    @Nonnull
+    BaseSTBBlock getBlock() {
+        return block;
+    }
+
+    TickerBucket getBucket() {
+        return bucket;
+    }
+
+    void setBucket(TickerBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    long getBase() {
+        return base;
+    }
+
+    boolean isScheduled() {
+        return slotIndex >= 0;
+    }
+
+    long getAge(long currentTick) {
+        return isScheduled() ? currentTick - base : suspendedAge;
+    }
+
+    /**
+     * Start the clock again, carrying on from the age the ticker had when it
+     * was suspended.
+     *
+     * @param currentTick
+     *            the current tick counter
+     */
+    void resume(long currentTick) {
+        base = currentTick - suspendedAge;
+    }
+
+    /**
+     * Stop the clock, remembering how old the ticker is.
+     *
+     * @param currentTick
+     *            the current tick counter
+     */
+    void suspend(long currentTick) {
+        suspendedAge = currentTick - base;
+    }
+
+    boolean isQueued() {
+        return queued;
+    }
+
+    /**
+     * Mark this ticker as waiting to run, pinning the age it has on the tick
+     * it fell due.
+     *
+     * @param currentTick
+     *            the current tick counter
+     */
+    void queue(long currentTick) {
+        queued = true;
+        queuedAge = currentTick - base;
+    }
+
+    void dequeue() {
+        queued = false;
+    }
+
+    long getQueuedAge() {
+        return queuedAge;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledTicker[" + block + " rate=" + rate + " base=" + base + (isScheduled() ? "" : " suspended") + "]";
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A hashed timing wheel for ticking STB blocks. There is one ring of slots for
+ * every distinct tick rate in use; a ticker with rate <em>R</em> sits in slot
+ * {@code base mod R} of ring <em>R</em>, so on any given tick only the one slot
+ * per ring holding the tickers which are actually due needs to be visited.
+ *
+ * @see LocationManager
+ * @see ScheduledTicker
+ */
+final class TickWheel {
+
+    private final Map<Integer, Ring> ringsByRate = new HashMap<>();
+    private final List<Ring> rings = new ArrayList<>();
+    private int size;
+
+    void schedule(@Nonnull ScheduledTicker ticker) {
+        Ring ring = ringsByRate.get(ticker.getRate());
+
+        if (ring == null) {
+            ring = new Ring(ticker.getRate());
+            ringsByRate.put(ticker.getRate(), ring);
+            rings.add(ring);
+        }
+
+        List<ScheduledTicker> slot = ring.getSlot(ticker.getBase());
+        ticker.slotIndex = slot.size();
+        slot.add(ticker);
+        size++;
+    }
+
+    void unschedule(@Nonnull ScheduledTicker ticker) {
+        if (!ticker.isScheduled()) {
+            return;
+        }
+
+        List<ScheduledTicker> slot = ringsByRate.get(ticker.getRate()).getSlot(ticker.getBase());
+
+        // swap the last ticker in the slot into the vacated position
+        ScheduledTicker last = slot.remove(slot.size() - 1);
+
+        if (last != ticker) {
+            slot.set(ticker.slotIndex, last);
+            last.slotIndex = ticker.slotIndex;
+        }
+
+        ticker.slotIndex = -1;
+        size--;
+    }
+
+    /**
+     * Add every ticker which is due on the given tick to the given list.
+     *
+     * @param tick
+     *            the current tick counter
+     * @param due
+     *            the list to add due tickers to
+     */
+    void collectDue(long tick, @Nonnull List<ScheduledTicker> due) {
+        for (int i = 0; i < rings.size(); i++) {
+            due.addAll(rings.get(i).getSlot(tick));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static final class Ring {
+
+        private final List<List<ScheduledTicker>> slots;
+
+        Ring(int rate) {
+            slots = new ArrayList<>(rate);
+
+            for (int i = 0; i < rate; i++) {
+                slots.add(new ArrayList<>());
+            }
+        }
+
+        @Nonnull
+        List<ScheduledTicker> getSlot(long tick) {
+            return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+        }
+    }
+}
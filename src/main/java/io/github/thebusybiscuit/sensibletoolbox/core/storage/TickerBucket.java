@@ -0,0 +1,46 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Holds the ticking STB blocks of a single chunk, so that the {@link LocationManager}
+ * can switch whole chunks in and out of its tick loop as they load and unload.
+ *
+ * @see LocationManager
+ */
+final class TickerBucket {
+
+    private final long chunkKey;
+    private final List<ScheduledTicker> tickers = new ArrayList<>();
+    private boolean loaded;
+
+    TickerBucket(long chunkKey, boolean loaded) {
+        this.chunkKey = chunkKey;
+        this.loaded = loaded;
+    }
+
+    long getChunkKey() {
+        return chunkKey;
+    }
+
+    @Nonnull
+    List<ScheduledTicker> getTickers() {
+        return tickers;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    @Override
+    public String toString() {
+        return "TickerBucket[" + (int) chunkKey + "," + (int) (chunkKey >> 32) + (loaded ? " loaded" : "") + ", " + tickers.size() + " tickers]";
+    }
+}
@@ -5,8 +5,11 @@ import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock;
+import io.github.thebusybiscuit.sensibletoolbox.utils.ItemSnapshot;
+import me.desht.dhutils.Debugger;
 
 class UpdateRecord {
 
@@ -15,33 +18,32 @@ class UpdateRecord {
     private final int x;
     private final int y;
     private final int z;
+    // the block to be saved, for an upsert; only to be touched on the main thread
+    private final BaseSTBBlock block;
     private String type;
     private String data;
+    private byte[] binaryData;
+    private YamlConfiguration snapshot;
+    // set once the DB writer thread is finished with this record
+    private volatile boolean done;
 
     @Nonnull
     public static UpdateRecord finishingRecord() {
-        return new UpdateRecord(DatabaseOperation.FINISH, null);
+        return new UpdateRecord(DatabaseOperation.FINISH, null, 0, 0, 0, null);
     }
 
     @Nonnull
     public static UpdateRecord commitRecord() {
-        return new UpdateRecord(DatabaseOperation.COMMIT, null);
+        return new UpdateRecord(DatabaseOperation.COMMIT, null, 0, 0, 0, null);
     }
 
-    protected UpdateRecord(@Nonnull DatabaseOperation op, @Nullable Location l) {
+    protected UpdateRecord(@Nonnull DatabaseOperation op, @Nullable UUID worldID, int x, int y, int z, @Nullable BaseSTBBlock block) {
         this.op = op;
-
-        if (l != null) {
-            this.worldID = l.getWorld().getUID();
-            this.x = l.getBlockX();
-            this.y = l.getBlockY();
-            this.z = l.getBlockZ();
-        } else {
-            this.worldID = null;
-            this.x = 0;
-            this.y = 0;
-            this.z = 0;
-        }
+        this.worldID = worldID;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.block = block;
     }
 
     @Override
@@ -82,6 +84,11 @@ class UpdateRecord {
         return op;
     }
 
+    @Nullable
+    public BaseSTBBlock getBlock() {
+        return block;
+    }
+
     public String getType() {
         return type;
     }
@@ -96,6 +103,88 @@ class UpdateRecord {
 
     public void setData(String data) {
         this.data = data;
+        this.binaryData = null;
+        this.snapshot = null;
+    }
+
+    public byte[] getBinaryData() {
+        return binaryData;
+    }
+
+    /**
+     * Get the format of this record's data; see {@link BlockStateCodec}.
+     *
+     * @return the data format
+     */
+    public int getFormat() {
+        return binaryData != null ? BlockStateCodec.FORMAT_BINARY : BlockStateCodec.FORMAT_YAML;
+    }
+
+    /**
+     * Set the block snapshot for this record; it is encoded into the record's data by
+     * {@link #encodeSnapshot()}. The snapshot must not be touched by anything else
+     * once it's been handed over.
+     *
+     * @param snapshot
+     *            the block snapshot, as returned by
+     *            {@link io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock#snapshot()}
+     */
+    public void setSnapshot(@Nonnull YamlConfiguration snapshot) {
+        this.snapshot = snapshot;
+        this.data = null;
+        this.binaryData = null;
+    }
+
+    public boolean hasSnapshot() {
+        return snapshot != null;
+    }
+
+    /**
+     * Encode this record's block snapshot, if it has one, into the record's data. This
+     * is the expensive part of saving a block, and is done on the DB writer thread.
+     * The compact binary format is used where possible, otherwise YAML.
+     */
+    public void encodeSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+
+        if (BlockStateCodec.isSupported()) {
+            try {
+                binaryData = BlockStateCodec.encode(snapshot);
+                snapshot = null;
+                return;
+            } catch (IllegalArgumentException e) {
+                // some value which only YAML can represent, fall back to that
+                Debugger.getInstance().debug("Can't use binary format for [" + this + "]: " + e.getMessage());
+            }
+        }
+
+        for (String key : snapshot.getKeys(true)) {
+            Object o = snapshot.get(key);
+
+            if (o instanceof ItemSnapshot) {
+                snapshot.set(key, ((ItemSnapshot) o).toBase64());
+            }
+        }
+
+        data = snapshot.saveToString();
+        snapshot = null;
+    }
+
+    /**
+     * Check if the DB writer thread is finished with this record, i.e. its write has been
+     * committed, or given up on. Until then, the DB may still hold an older row for its
+     * location.
+     *
+     * @return true if this record is done with
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    public void markDone() {
+        done = true;
     }
 
     public UUID getWorldID() {
@@ -124,9 +213,4 @@ class UpdateRecord {
                 return String.format("%s %s,%d,%d,%d %s", op.toString(), worldID, x, y, z, type);
         }
     }
-
-    @Nonnull
-    public Location getLocation() {
-        return new Location(Bukkit.getWorld(worldID), x, y, z);
-    }
 }
@@ -0,0 +1,171 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
+import me.desht.dhutils.Debugger;
+import me.desht.dhutils.text.LogUtils;
+
+/**
+ * Loads the saved STB blocks of one chunk, or those of one block type across a whole
+ * world, from the database. This runs on the loader thread, which fetches and decodes the rows and
+ * streams them over to the main thread; the blocks themselves are created and
+ * registered there, see {@link LocationManager#tick()}.
+ *
+ * @see LoadRecord
+ */
+final class WorldLoad implements Runnable {
+
+    private final LocationManager manager;
+    private final World world;
+    private final String wantedType;
+    private final int chunkX;
+    private final int chunkZ;
+    private volatile boolean cancelled;
+    // only touched on the main thread
+    private boolean finished;
+
+    /**
+     * Create a load for all blocks of the given type in a world.
+     *
+     * @param manager
+     *            the location manager
+     * @param world
+     *            the world to load blocks for
+     * @param wantedType
+     *            the block type to load
+     */
+    WorldLoad(@Nonnull LocationManager manager, @Nonnull World world, @Nonnull String wantedType) {
+        this.manager = manager;
+        this.world = world;
+        this.wantedType = wantedType;
+        this.chunkX = 0;
+        this.chunkZ = 0;
+    }
+
+    /**
+     * Create a load for all blocks in the given chunk.
+     *
+     * @param manager
+     *            the location manager
+     * @param world
+     *            the world to load blocks for
+     * @param chunkX
+     *            the chunk's X coordinate
+     * @param chunkZ
+     *            the chunk's Z coordinate
+     */
+    WorldLoad(@Nonnull LocationManager manager, @Nonnull World world, int chunkX, int chunkZ) {
+        this.manager = manager;
+        this.world = world;
+        this.wantedType = null;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    @Nonnull
+    World getWorld() {
+        return world;
+    }
+
+    @Nullable
+    String getWantedType() {
+        return wantedType;
+    }
+
+    boolean isChunkLoad() {
+        return wantedType == null;
+    }
+
+    int getChunkX() {
+        return chunkX;
+    }
+
+    int getChunkZ() {
+        return chunkZ;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if every block fetched by this load has been registered (or dropped) on the
+     * main thread.
+     *
+     * @return true if this load is finished
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    void markFinished() {
+        finished = true;
+    }
+
+    /**
+     * Stop this load; any of its records which have already been passed over to the
+     * main thread are discarded.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void run() {
+        Debugger.getInstance().debug("loading STB blocks for " + this);
+        int n = 0;
+
+        try (ResultSet rs = manager.getResultsFor(this)) {
+            while (!cancelled && rs.next()) {
+                int x = rs.getInt(2);
+                int y = rs.getInt(3);
+                int z = rs.getInt(4);
+                String type = rs.getString(5);
+                int format = rs.getInt(7);
+
+                try {
+                    YamlConfiguration conf;
+
+                    if (format == BlockStateCodec.FORMAT_BINARY) {
+                        conf = BlockStateCodec.decode(rs.getBytes(6));
+                    } else {
+                        conf = new YamlConfiguration();
+                        conf.loadFromString(rs.getString(6));
+                    }
+
+                    manager.putLoadRecord(new LoadRecord(this, x, y, z, type, conf));
+                    n++;
+                } catch (Exception | LinkageError e) {
+                    LogUtils.severe(String.format("Can't load STB block at %s,%d,%d,%d: %s", world.getName(), x, y, z, e.getMessage()));
+                }
+            }
+        } catch (SQLException e) {
+            SensibleToolboxPlugin.getInstance().getLogger().log(Level.SEVERE, e, () -> "Can't load STB data for world " + world.getName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Debugger.getInstance().debug("fetched " + n + " STB blocks for " + this);
+
+        try {
+            manager.putLoadRecord(LoadRecord.finishingRecord(this));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "world " + world.getName() + (isChunkLoad() ? " chunk " + chunkX + "," + chunkZ : " type " + wantedType);
+    }
+}
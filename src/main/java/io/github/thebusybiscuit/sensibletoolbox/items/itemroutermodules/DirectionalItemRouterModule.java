@@ -2,6 +2,7 @@ package io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -294,7 +295,8 @@ public abstract class DirectionalItemRouterModule extends ItemRouterModule imple
             pulled = ((STBInventoryHolder) stb).extractItems(from.getOppositeFace(), inBuffer, nToPull, getItemRouter().getOwner());
         } else {
             // possible vanilla inventory holder
-            pulled = VanillaInventoryUtils.pullFromInventory(targetLoc.getBlock(), nToPull, inBuffer, getFilter(), getItemRouter().getOwner());
+            Optional<Inventory> targetInv = getItemRouter().getNeighbourInventory(getFacing());
+            pulled = targetInv.isPresent() ? VanillaInventoryUtils.pullFromInventory(targetLoc.getBlock(), targetInv.get(), nToPull, inBuffer, getFilter(), getItemRouter().getOwner()) : null;
         }
 
         if (pulled != null) {
@@ -309,9 +311,28 @@ public abstract class DirectionalItemRouterModule extends ItemRouterModule imple
         return false;
     }
 
-    protected boolean vanillaInsertion(Block target, int amount, BlockFace face) {
+    /**
+     * Attempt to insert items from the router's buffer into the vanilla inventory
+     * next to the router in the given direction.
+     *
+     * @param direction
+     *            the direction of the target block from the router
+     * @param amount
+     *            the number of items from the buffer to insert
+     * @param face
+     *            the side on which insertion is occurring
+     * @return true if any items were inserted
+     */
+    protected boolean vanillaInsertion(BlockFace direction, int amount, BlockFace face) {
+        Optional<Inventory> targetInv = getItemRouter().getNeighbourInventory(direction);
+
+        if (!targetInv.isPresent()) {
+            return false;
+        }
+
+        Block target = getItemRouter().getRelativeLocation(direction).getBlock();
         ItemStack buffer = getItemRouter().getBufferItem();
-        int nInserted = VanillaInventoryUtils.vanillaInsertion(target, buffer, amount, face, false, getItemRouter().getOwner());
+        int nInserted = VanillaInventoryUtils.vanillaInsertion(target, targetInv.get(), buffer, amount, face, false, getItemRouter().getOwner());
 
         if (nInserted == 0) {
             // no insertion happened
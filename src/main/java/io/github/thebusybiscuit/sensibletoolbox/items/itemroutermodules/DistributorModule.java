@@ -81,7 +81,7 @@ public class DistributorModule extends DirectionalItemRouterModule {
                 return nInserted > 0;
             } else {
                 // vanilla inventory holder?
-                return vanillaInsertion(target, nToInsert, getFacing().getOppositeFace());
+                return vanillaInsertion(face, nToInsert, getFacing().getOppositeFace());
             }
         }
 
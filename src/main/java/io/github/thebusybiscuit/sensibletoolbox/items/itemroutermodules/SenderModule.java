@@ -6,9 +6,7 @@ import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.Particle.DustOptions;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.ShapelessRecipe;
@@ -99,10 +97,7 @@ public class SenderModule extends DirectionalItemRouterModule {
                 }
             }
 
-            BlockState state = target.getState();
-            if (state instanceof InventoryHolder) {
-                return vanillaInsertion(target, nToInsert, getFacing().getOppositeFace());
-            }
+            return vanillaInsertion(getFacing(), nToInsert, getFacing().getOppositeFace());
         }
         return false;
     }
@@ -1,10 +1,13 @@
 package io.github.thebusybiscuit.sensibletoolbox.items.itemroutermodules;
 
+import java.util.Optional;
+
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.ShapelessRecipe;
@@ -77,8 +80,14 @@ public class SorterModule extends DirectionalItemRouterModule {
     }
 
     private int vanillaSortInsertion(Block target, int amount, BlockFace side) {
+        Optional<Inventory> targetInv = getItemRouter().getNeighbourInventory(getFacing());
+
+        if (!targetInv.isPresent()) {
+            return 0;
+        }
+
         ItemStack buffer = getItemRouter().getBufferItem();
-        int nInserted = VanillaInventoryUtils.vanillaInsertion(target, buffer, amount, side, true, getItemRouter().getOwner());
+        int nInserted = VanillaInventoryUtils.vanillaInsertion(target, targetInv.get(), buffer, amount, side, true, getItemRouter().getOwner());
 
         if (nInserted > 0) {
             getItemRouter().setBufferItem(buffer.getAmount() == 0 ? null : buffer);
@@ -123,6 +123,21 @@ public class GeneralListener extends STBBaseListener {
         }
     }
 
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
+    public void onBlockBreakWhileLoading(BlockBreakEvent event) {
+        // until its chunk's STB blocks are loaded, an STB block would be broken as a vanilla one
+        if (LocationManager.getManager().isChunkLoading(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
+    public void onBlockPlaceWhileLoading(BlockPlaceEvent event) {
+        if (LocationManager.getManager().isChunkLoading(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)
     public void onBlockPrePlaceCheck(BlockPlaceEvent event) {
         BaseSTBItem stb = SensibleToolbox.getItemRegistry().fromItemStack(event.getItemInHand());
@@ -156,6 +171,11 @@ public class GeneralListener extends STBBaseListener {
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)
     public void onBlockMayBurnAway(BlockBurnEvent event) {
+        if (LocationManager.getManager().isChunkLoading(event.getBlock())) {
+            event.setCancelled(true);
+            return;
+        }
+
         BaseSTBBlock stb = LocationManager.getManager().get(event.getBlock().getLocation());
 
         if (stb != null && !stb.isFlammable()) {
@@ -255,14 +275,21 @@ public class GeneralListener extends STBBaseListener {
     @EventHandler(ignoreCancelled = true)
     public void onBlockPhysics(BlockPhysicsEvent event) {
         Block block = event.getBlock();
-        BaseSTBBlock item = LocationManager.getManager().get(block.getLocation());
+        LocationManager manager = LocationManager.getManager();
+
+        // the vast majority of physics events are nowhere near an STB block
+        if (!manager.mayHaveBlockNear(block)) {
+            return;
+        }
+
+        BaseSTBBlock item = manager.get(block);
 
         if (item != null) {
             item.handlePhysicsEvent(event);
         } else {
             if (block.getType() == Material.LEVER) {
                 Directional l = (Directional) block.getBlockData();
-                item = LocationManager.getManager().get(block.getRelative(l.getFacing()).getLocation());
+                item = manager.get(block.getRelative(l.getFacing()));
 
                 if (item != null) {
                     event.setCancelled(true);
@@ -273,9 +300,9 @@ public class GeneralListener extends STBBaseListener {
 
     @EventHandler
     public void onFlow(BlockFromToEvent event) {
-        BaseSTBBlock item = LocationManager.getManager().get(event.getToBlock().getLocation());
+        BaseSTBBlock item = LocationManager.getManager().get(event.getToBlock());
 
-        if (item != null) {
+        if (item != null || LocationManager.getManager().isChunkLoading(event.getToBlock())) {
             // this prevents things like the carpet layer on a solar cell being washed off
             event.setCancelled(true);
         }
@@ -289,7 +316,7 @@ public class GeneralListener extends STBBaseListener {
             Block b = iterator.next();
             BaseSTBBlock stb = LocationManager.getManager().get(b.getLocation());
 
-            if (stb != null) {
+            if (stb != null || LocationManager.getManager().isChunkLoading(b)) {
                 iterator.remove();
             }
         }
@@ -498,7 +525,7 @@ public class GeneralListener extends STBBaseListener {
     public void onPistonExtend(BlockPistonExtendEvent event) {
         for (Block block : event.getBlocks()) {
             BaseSTBBlock stb = LocationManager.getManager().get(block.getLocation());
-            if (stb != null) {
+            if (stb != null || LocationManager.getManager().isChunkLoading(block)) {
                 event.setCancelled(true);
                 return;
             }
@@ -508,7 +535,7 @@ public class GeneralListener extends STBBaseListener {
     @EventHandler(ignoreCancelled = true)
     public void onPistonRetract(BlockPistonRetractEvent event) {
         BaseSTBBlock stb = LocationManager.getManager().get(event.getRetractLocation());
-        if (stb != null) {
+        if (stb != null || LocationManager.getManager().isChunkLoading(event.getRetractLocation().getBlock())) {
             event.setCancelled(true);
         }
     }
@@ -2,19 +2,28 @@ package io.github.thebusybiscuit.sensibletoolbox.listeners;
 
 import javax.annotation.Nonnull;
 
+import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.event.world.WorldEvent;
 import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.event.world.WorldUnloadEvent;
 
 import io.github.thebusybiscuit.sensibletoolbox.SensibleToolboxPlugin;
+import io.github.thebusybiscuit.sensibletoolbox.core.energy.EnergyNetManager;
 import io.github.thebusybiscuit.sensibletoolbox.core.storage.LocationManager;
+import io.github.thebusybiscuit.sensibletoolbox.utils.NeighbourInventoryCache;
 
 /**
  * This {@link Listener} is responsible for any {@link WorldEvent} and loading or unloading
- * data for these {@link World Worlds}.
+ * data for these {@link World Worlds}. It also tells the {@link LocationManager} when a
+ * {@link Chunk} is loaded or unloaded, so only blocks in loaded chunks get ticked, and
+ * tells the {@link EnergyNetManager} when a {@link Chunk} is loaded, so that cable scans
+ * which stopped at its edge can carry on.
  * 
  * @author desht
  * 
@@ -35,5 +44,18 @@ public class WorldListener extends STBBaseListener {
     @EventHandler
     public void onWorldUnLoad(WorldUnloadEvent event) {
         LocationManager.getManager().unloadWorld(event.getWorld());
+        plugin.getEnergyNetManager().onWorldUnload(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        LocationManager.getManager().onChunkLoad(event.getChunk());
+        plugin.getEnergyNetManager().onChunkLoad(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        LocationManager.getManager().onChunkUnload(event.getChunk());
+        NeighbourInventoryCache.onChunkUnload(event.getChunk());
     }
 }
@@ -55,27 +55,73 @@ public final class BukkitSerialization {
         }
     }
 
+    /**
+     * Serialize an array of items in the same format as {@link #toBase64(Inventory, int)},
+     * so the result can be read back with {@link #fromBase64(String)}. Unlike the
+     * {@link Inventory} variants, this doesn't touch any server state.
+     *
+     * @param items
+     *            the items to serialize; may contain null elements
+     * @return a base64-encoded representation of the items
+     */
+    public static String toBase64(@Nonnull ItemStack[] items) {
+        Preconditions.checkArgument(items != null, "Cannot serialize a 'null' array of items!");
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(); BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
+            dataOutput.writeInt(items.length);
+
+            for (ItemStack s : items) {
+                dataOutput.writeObject(s);
+            }
+
+            return Base64Coder.encodeLines(outputStream.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to save item stacks.", e);
+        }
+    }
+
     public static Inventory fromBase64(@Nonnull String data) throws IOException {
+        ItemStack[] items = itemsFromBase64(data);
+
+        // Bukkit inventory size must be multiple of 9
+        int invSize = STBUtil.roundUp(items.length, 9);
+        Inventory inventory = Bukkit.getServer().createInventory(null, invSize);
+
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                inventory.setItem(i, items[i]);
+            }
+        }
+
+        return inventory;
+    }
+
+    /**
+     * Deserialize items from a string created by one of the {@code toBase64()} methods.
+     * Unlike {@link #fromBase64(String)}, this keeps the exact number of items that
+     * was serialized, and doesn't touch any server state.
+     *
+     * @param data
+     *            the base64-encoded items
+     * @return the items; may contain null elements
+     * @throws IOException
+     *             if the data could not be decoded
+     */
+    @Nonnull
+    public static ItemStack[] itemsFromBase64(@Nonnull String data) throws IOException {
         try (ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64Coder.decodeLines(data)); BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
 
             int maxItems = dataInput.readInt();
+            ItemStack[] items = new ItemStack[maxItems];
 
-            // Bukkit inventory size must be multiple of 9
-            int invSize = STBUtil.roundUp(maxItems, 9);
-            Inventory inventory = Bukkit.getServer().createInventory(null, invSize);
-
-            // Read the serialized inventory
+            // Read the serialized items
             for (int i = 0; i < maxItems; i++) {
-                ItemStack s = (ItemStack) dataInput.readObject();
-
-                if (s != null) {
-                    inventory.setItem(i, s);
-                }
+                items[i] = (ItemStack) dataInput.readObject();
             }
 
-            return inventory;
+            return items;
         } catch (ClassNotFoundException e) {
             throw new IOException("Unable to decode class type.", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * An immutable copy of some items, taken when a block's state is snapshotted
+ * for saving. The items are only encoded (see {@link #toBase64()} and
+ * {@link #toBytes()}) when the snapshot is written out, which may happen off
+ * the main thread. Blocks loaded from the compact binary format get their
+ * frozen items back as a snapshot too; see {@link #fromConfig(ConfigurationSection, String)}.
+ *
+ * @see io.github.thebusybiscuit.sensibletoolbox.api.items.BaseSTBBlock#snapshot()
+ */
+public final class ItemSnapshot {
+
+    private final ItemStack[] items;
+
+    private ItemSnapshot(@Nonnull ItemStack[] items) {
+        this.items = items;
+    }
+
+    /**
+     * Take a snapshot of the given items. Each item is cloned, so later
+     * changes to the items don't affect the snapshot.
+     *
+     * @param items
+     *            the items to copy; may contain null elements
+     * @return the snapshot
+     */
+    @Nonnull
+    public static ItemSnapshot of(@Nonnull ItemStack... items) {
+        ItemStack[] copy = new ItemStack[items.length];
+
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = cloneItem(items[i]);
+        }
+
+        return new ItemSnapshot(copy);
+    }
+
+    @Nullable
+    private static ItemStack cloneItem(@Nullable ItemStack item) {
+        return item == null ? null : item.clone();
+    }
+
+    /**
+     * Get the frozen items stored under the given key of a block's configuration.
+     * These may be either a base64-encoded string, as written by {@link #toBase64()},
+     * or an already decoded snapshot.
+     *
+     * @param conf
+     *            the block's configuration
+     * @param key
+     *            the key the items were frozen under
+     * @return the items, or null if there are none stored under that key
+     * @throws IOException
+     *             if the items could not be decoded
+     */
+    @Nullable
+    public static ItemSnapshot fromConfig(@Nonnull ConfigurationSection conf, @Nonnull String key) throws IOException {
+        Object o = conf.get(key);
+
+        if (o instanceof ItemSnapshot) {
+            return (ItemSnapshot) o;
+        } else if (o instanceof String && !((String) o).isEmpty()) {
+            return new ItemSnapshot(BukkitSerialization.itemsFromBase64((String) o));
+        } else {
+            return null;
+        }
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Get a copy of one of the items in this snapshot.
+     *
+     * @param index
+     *            the index of the item
+     * @return a copy of the item, or null if there is no item at that index
+     */
+    @Nullable
+    public ItemStack getItem(int index) {
+        return index < items.length ? cloneItem(items[index]) : null;
+    }
+
+    /**
+     * Encode the items in this snapshot, in the same format as
+     * {@link BukkitSerialization#toBase64(org.bukkit.inventory.Inventory, int)}.
+     *
+     * @return a base64-encoded representation of the items
+     */
+    @Nonnull
+    public String toBase64() {
+        return BukkitSerialization.toBase64(items);
+    }
+
+    /**
+     * Encode each of the items in this snapshot with {@link ItemStack#serializeAsBytes()}.
+     * Empty slots are encoded as an empty array.
+     *
+     * @return the encoded items
+     */
+    @Nonnull
+    public byte[][] toBytes() {
+        byte[][] res = new byte[items.length][];
+
+        for (int i = 0; i < items.length; i++) {
+            ItemStack item = items[i];
+            res[i] = item == null || item.getType().isAir() ? new byte[0] : item.serializeAsBytes();
+        }
+
+        return res;
+    }
+
+    /**
+     * Decode a snapshot from items encoded by {@link #toBytes()}.
+     *
+     * @param data
+     *            the encoded items
+     * @return the snapshot
+     */
+    @Nonnull
+    public static ItemSnapshot fromBytes(@Nonnull byte[][] data) {
+        ItemStack[] res = new ItemStack[data.length];
+
+        for (int i = 0; i < data.length; i++) {
+            res[i] = data[i].length == 0 ? null : ItemStack.deserializeBytes(data[i]);
+        }
+
+        return new ItemSnapshot(res);
+    }
+
+    @Override
+    public String toString() {
+        return "ItemSnapshot[" + items.length + " items]";
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.util.function.LongConsumer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A hash set of primitive longs, using open addressing with linear probing; the
+ * set counterpart of {@link LongObjectMap}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LongHashSet extends LongHashTable {
+
+    public LongHashSet() {
+        super(0);
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] moves) {
+        // no values to move
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        // no values to move
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Add the given key to this set.
+     *
+     * @param key
+     *            the key
+     * @return true if the key was added, false if it was already present
+     */
+    public boolean add(long key) {
+        int i = slotFor(key);
+
+        if (i >= 0) {
+            return false;
+        }
+
+        insertAt(-(i + 1), key);
+        return true;
+    }
+
+    public void addAll(@Nonnull LongHashSet other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Remove the given key from this set.
+     *
+     * @param key
+     *            the key
+     * @return true if the key was removed, false if it wasn't present
+     */
+    public boolean remove(long key) {
+        int i = indexOf(key);
+
+        if (i < 0) {
+            return false;
+        }
+
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Run the given action for every key in this set, in no particular order. The set
+     * must not be modified while doing so.
+     *
+     * @param action
+     *            the action to run
+     */
+    public void forEach(@Nonnull LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Get all the keys in this set, in no particular order.
+     *
+     * @return a new array of the keys
+     */
+    @Nonnull
+    public long[] toArray() {
+        long[] res = new long[size()];
+        int n = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                res[n++] = keys[i];
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "LongHashSet[" + size() + " keys]";
+    }
+}
@@ -0,0 +1,220 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.util.Arrays;
+
+/**
+ * The hashing and probing shared by the primitive long-keyed collections
+ * ({@link LongHashSet}, {@link LongIntMap} and {@link LongObjectMap}): an open
+ * addressing table with linear probing, which is kept at most half full. Subclasses
+ * which map keys to values keep the values in their own arrays, indexed by slot, and
+ * are told whenever the table moves them.
+ * <p>
+ * This class is not thread-safe.
+ */
+abstract class LongHashTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    long[] keys;
+    boolean[] used;
+    private int mask;
+    private int size;
+
+    LongHashTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Called when the table is resized; the subclass must allocate new value storage of
+     * the given capacity, and move each of its values from slot {@code i} of the old
+     * storage to slot {@code moves[i]} of the new one (skipping slots where that's -1).
+     *
+     * @param capacity
+     *            the new capacity
+     * @param moves
+     *            the new slot for each old slot, or -1 if the old slot was empty
+     */
+    abstract void resizeValues(int capacity, int[] moves);
+
+    /**
+     * Called when an entry is moved from one slot to another, when an entry before it is
+     * removed.
+     *
+     * @param from
+     *            the slot the entry is moved from
+     * @param to
+     *            the slot the entry is moved to
+     */
+    abstract void moveValue(int from, int to);
+
+    /**
+     * Called when a slot becomes empty, so that the subclass can drop any reference it
+     * holds there.
+     *
+     * @param slot
+     *            the slot
+     */
+    void clearValue(int slot) {}
+
+    /**
+     * Called when the table is cleared.
+     */
+    void clearValues() {}
+
+    private static int hash(long key) {
+        // the finalizer from MurmurHash3, so that packed coordinates spread over the whole table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Find the slot holding the given key.
+     *
+     * @param key
+     *            the key
+     * @return the slot, or -1 if the key is not present
+     */
+    final int indexOf(long key) {
+        int i = hash(key) & mask;
+
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Find the slot holding the given key, or the empty slot where it should go.
+     *
+     * @param key
+     *            the key
+     * @return the slot holding the key, or {@code -(slot + 1)} for the empty slot
+     *         to pass to {@link #insertAt(int, long)}
+     */
+    final int slotFor(long key) {
+        int i = hash(key) & mask;
+
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return -(i + 1);
+    }
+
+    /**
+     * Put the given key in the given empty slot, as found by {@link #slotFor(long)}. Any
+     * value must already have been stored in the slot, since the table may be resized.
+     *
+     * @param slot
+     *            the empty slot
+     * @param key
+     *            the key
+     */
+    final void insertAt(int slot, long key) {
+        keys[slot] = key;
+        used[slot] = true;
+
+        // keep the load factor at or below 1/2, so that probe sequences stay short
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Empty the given slot.
+     *
+     * @param slot
+     *            a slot holding a key
+     */
+    final void removeAt(int slot) {
+        size--;
+
+        // shift back any following entries which would no longer be reachable past the gap
+        int gap = slot;
+        int j = slot;
+
+        while (true) {
+            j = (j + 1) & mask;
+
+            if (!used[j]) {
+                break;
+            }
+
+            int home = hash(keys[j]) & mask;
+
+            // move the entry unless its home slot lies cyclically within (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                moveValue(j, gap);
+                gap = j;
+            }
+        }
+
+        used[gap] = false;
+        clearValue(gap);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[] moves = new int[oldKeys.length];
+
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int j = hash(oldKeys[i]) & mask;
+
+                while (used[j]) {
+                    j = (j + 1) & mask;
+                }
+
+                keys[j] = oldKeys[i];
+                used[j] = true;
+                moves[i] = j;
+            } else {
+                moves[i] = -1;
+            }
+        }
+
+        resizeValues(capacity, moves);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    public final void clear() {
+        Arrays.fill(used, false);
+        clearValues();
+        size = 0;
+    }
+}
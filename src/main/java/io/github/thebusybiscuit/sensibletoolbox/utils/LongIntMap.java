@@ -0,0 +1,86 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+/**
+ * A hash map from primitive long keys to primitive int values, using open addressing
+ * with linear probing; the primitive-valued counterpart of {@link LongObjectMap}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LongIntMap extends LongHashTable {
+
+    private int[] values;
+
+    public LongIntMap() {
+        super(0);
+        values = new int[keys.length];
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] moves) {
+        int[] oldValues = values;
+        values = new int[capacity];
+
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] >= 0) {
+                values[moves[i]] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Get the value mapped to the given key.
+     *
+     * @param key
+     *            the key
+     * @param defaultValue
+     *            the value to return if the key isn't mapped
+     * @return the mapped value, or the default value
+     */
+    public int get(long key, int defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    public void put(long key, int value) {
+        int i = slotFor(key);
+
+        if (i >= 0) {
+            values[i] = value;
+        } else {
+            values[-(i + 1)] = value;
+            insertAt(-(i + 1), key);
+        }
+    }
+
+    /**
+     * Remove the mapping for the given key, if there is one.
+     *
+     * @param key
+     *            the key
+     * @return true if the key was mapped
+     */
+    public boolean remove(long key) {
+        int i = indexOf(key);
+
+        if (i < 0) {
+            return false;
+        }
+
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "LongIntMap[" + size() + " entries]";
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A hash map from primitive long keys to (non-null) object values, using open
+ * addressing with linear probing. Unlike a {@link java.util.HashMap} with {@link Long}
+ * keys, lookups don't allocate, and there are no entry objects to chase, which makes
+ * it suitable for indexes which are hit on every block event.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public final class LongObjectMap<V> extends LongHashTable {
+
+    private Object[] values;
+
+    public LongObjectMap() {
+        this(0);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        super(expectedSize);
+        values = new Object[keys.length];
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] moves) {
+        Object[] oldValues = values;
+        values = new Object[capacity];
+
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] >= 0) {
+                values[moves[i]] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = null;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, null);
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    /**
+     * Map the given key to the given value.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value, which may not be null
+     * @return the value previously mapped to the key, or null if there was none
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(long key, @Nonnull V value) {
+        Preconditions.checkArgument(value != null, "Value must not be null");
+
+        int i = slotFor(key);
+
+        if (i >= 0) {
+            V old = (V) values[i];
+            values[i] = value;
+            return old;
+        }
+
+        values[-(i + 1)] = value;
+        insertAt(-(i + 1), key);
+        return null;
+    }
+
+    /**
+     * Remove the mapping for the given key, if there is one.
+     *
+     * @param key
+     *            the key
+     * @return the value which was mapped to the key, or null if there was none
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = indexOf(key);
+
+        if (i < 0) {
+            return null;
+        }
+
+        V old = (V) values[i];
+        removeAt(i);
+        return old;
+    }
+
+    /**
+     * Get all the values in this map. The returned list is a copy, so the map may
+     * be modified while iterating over it.
+     *
+     * @return a list of the values, in no particular order
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> res = new ArrayList<>(size());
+
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                res.add((V) values[i]);
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "LongObjectMap[" + size() + " entries]";
+    }
+}
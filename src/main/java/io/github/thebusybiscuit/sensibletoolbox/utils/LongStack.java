@@ -0,0 +1,58 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A growable stack of primitive longs, for use as the explicit work list of a
+ * search over packed block positions.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LongStack {
+
+    private long[] elements = new long[16];
+    private int size;
+
+    public void push(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+
+        elements[size++] = value;
+    }
+
+    public long pop() {
+        Preconditions.checkState(size > 0, "Stack is empty");
+        return elements[--size];
+    }
+
+    public void pushAll(@Nonnull LongStack other) {
+        if (size + other.size > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(size + other.size, size * 2));
+        }
+
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LongStack[" + size + " elements]";
+    }
+}
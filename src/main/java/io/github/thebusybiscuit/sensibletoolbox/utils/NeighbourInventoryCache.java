@@ -0,0 +1,106 @@
+package io.github.thebusybiscuit.sensibletoolbox.utils;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.inventory.DoubleChestInventory;
+import org.bukkit.inventory.Inventory;
+
+/**
+ * Caches the vanilla inventories next to a block, by face, so that a block which
+ * moves items in and out of its neighbours every tick doesn't need to look them up
+ * each time (see {@link VanillaInventoryUtils#getVanillaInventory(Block)}).
+ * <p>
+ * An entry is dropped if the neighbour's type has changed since it was cached, or if
+ * the neighbour's chunk has been unloaded since then (which replaces its block entity,
+ * leaving the cached inventory detached from the world). That doesn't catch every
+ * change, so the owning block must also call {@link #clear()} whenever a neighbouring
+ * block changes, i.e. from its physics event handler.
+ * <p>
+ * Double chest inventories are never cached: the other half of the chest may be
+ * broken (or its chunk unloaded) without the neighbouring block changing at all.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class NeighbourInventoryCache {
+
+    // the number of slots in the chunk unload counter table, a power of two
+    private static final int UNLOAD_BITS = 12;
+
+    // the number of chunk unloads so far in the chunks hashing to each slot; chunks
+    // in different worlds may share a slot, which only costs a needless lookup
+    private static final int[] unloadCounts = new int[1 << UNLOAD_BITS];
+
+    private final Map<BlockFace, Entry> entries = new EnumMap<>(BlockFace.class);
+
+    private static int getChunkSlot(int chunkX, int chunkZ) {
+        int h = chunkX * 0x9E3779B1 + chunkZ * 0x85EBCA77;
+        return h >>> (32 - UNLOAD_BITS);
+    }
+
+    /**
+     * Called when a chunk is unloaded; any inventory cached from it is no longer valid.
+     *
+     * @param chunk
+     *            the chunk being unloaded
+     */
+    public static void onChunkUnload(@Nonnull Chunk chunk) {
+        unloadCounts[getChunkSlot(chunk.getX(), chunk.getZ())]++;
+    }
+
+    /**
+     * Get the vanilla inventory next to the given block, on the given face.
+     *
+     * @param base
+     *            the block owning this cache
+     * @param face
+     *            the face to look at
+     * @return the neighbouring block's inventory, or an empty Optional if it has none
+     */
+    @Nonnull
+    public Optional<Inventory> get(@Nonnull Block base, @Nonnull BlockFace face) {
+        Block target = base.getRelative(face);
+        Material type = target.getType();
+        int unloadCount = unloadCounts[getChunkSlot(target.getX() >> 4, target.getZ() >> 4)];
+        Entry entry = entries.get(face);
+
+        if (entry == null || entry.type != type || entry.unloadCount != unloadCount) {
+            Optional<Inventory> inventory = VanillaInventoryUtils.getVanillaInventory(target);
+
+            if (inventory.isPresent() && inventory.get() instanceof DoubleChestInventory) {
+                entries.remove(face);
+                return inventory;
+            }
+
+            entry = new Entry(type, unloadCount, inventory.orElse(null));
+            entries.put(face, entry);
+        }
+
+        return Optional.ofNullable(entry.inventory);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+
+        private final Material type;
+        private final int unloadCount;
+        private final Inventory inventory;
+
+        private Entry(@Nonnull Material type, int unloadCount, @Nullable Inventory inventory) {
+            this.type = type;
+            this.unloadCount = unloadCount;
+            this.inventory = inventory;
+        }
+    }
+}
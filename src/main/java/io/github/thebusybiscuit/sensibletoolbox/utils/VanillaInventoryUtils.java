@@ -8,7 +8,6 @@ import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -22,6 +21,7 @@ import org.bukkit.inventory.ItemStack;
 import io.github.bakedlibs.dough.protection.Interaction;
 import io.github.thebusybiscuit.sensibletoolbox.api.SensibleToolbox;
 import io.github.thebusybiscuit.sensibletoolbox.api.filters.Filter;
+import io.papermc.lib.PaperLib;
 
 import me.desht.dhutils.Debugger;
 
@@ -40,14 +40,16 @@ public final class VanillaInventoryUtils {
     }
 
     /**
-     * Get the vanilla inventory for the given block.
+     * Get the vanilla inventory for the given block. Where the server allows it, the
+     * block's state is not snapshotted, so its contents aren't copied; the returned
+     * inventory is the live one either way.
      *
      * @param target
      *            the block containing the target inventory
      * @return the block's inventory, or null if the block does not have one
      */
     public static Optional<Inventory> getVanillaInventory(@Nonnull Block target) {
-        BlockState state = target.getState();
+        BlockState state = PaperLib.getBlockState(target, false).getState();
 
         if (state instanceof InventoryHolder) {
             return Optional.of(((InventoryHolder) state).getInventory());
@@ -76,22 +78,47 @@ public final class VanillaInventoryUtils {
      * @return the number of items actually inserted
      */
     public static int vanillaInsertion(Block target, ItemStack source, int amount, BlockFace side, boolean sorting, UUID inserterId) {
-        if (source == null || source.getAmount() == 0) {
+        Optional<Inventory> targetInv = getVanillaInventory(target);
+
+        if (targetInv.isEmpty()) {
             return 0;
+        } else {
+            return vanillaInsertion(target, targetInv.get(), source, amount, side, sorting, inserterId);
         }
+    }
 
-        if (inserterId == null || !SensibleToolbox.getProtectionManager().hasPermission(Bukkit.getOfflinePlayer(inserterId), target, Interaction.INTERACT_BLOCK)) {
+    /**
+     * Attempt to insert items from the given buffer into the given block,
+     * using an inventory which has already been looked up for it (e.g. by a
+     * {@link NeighbourInventoryCache}). Items successfully inserted will be
+     * removed from the buffer stack.
+     *
+     * @param target
+     *            the block to insert into
+     * @param targetInv
+     *            the block's inventory
+     * @param source
+     *            the item stack to take items from
+     * @param amount
+     *            the number of items from the buffer to insert
+     * @param side
+     *            the side on which insertion is occurring
+     *            (some blocks care about this, e.g. furnace)
+     * @param inserterId
+     *            UUID of the player doing the insertion
+     *            (may be null or the UUID of an offline player)
+     * @return the number of items actually inserted
+     */
+    public static int vanillaInsertion(Block target, @Nonnull Inventory targetInv, ItemStack source, int amount, BlockFace side, boolean sorting, UUID inserterId) {
+        if (source == null || source.getAmount() == 0) {
             return 0;
         }
 
-        Optional<Inventory> targetInv = getVanillaInventory(target);
-
-
-        if (targetInv.isEmpty()) {
+        if (inserterId == null || !SensibleToolbox.getInstance().getProtectionCache().hasPermission(inserterId, target, Interaction.INTERACT_BLOCK)) {
             return 0;
-        } else {
-            return vanillaInsertion(targetInv.get(), source, amount, side, sorting);
         }
+
+        return vanillaInsertion(targetInv, source, amount, side, sorting);
     }
 
     /**
@@ -175,19 +202,46 @@ public final class VanillaInventoryUtils {
      */
     @Nullable
     public static ItemStack pullFromInventory(Block target, int amount, ItemStack buffer, Filter filter, @Nullable UUID pullerId) {
-        if (pullerId == null || !SensibleToolbox.getProtectionManager().hasPermission(Bukkit.getOfflinePlayer(pullerId), target, Interaction.INTERACT_BLOCK)) {
-            return null;
-        }
-
         Optional<Inventory> targetInv = getVanillaInventory(target);
 
         if (!targetInv.isPresent()) {
             return null;
         } else {
-            return pullFromInventory(targetInv.get(), amount, buffer, filter);
+            return pullFromInventory(target, targetInv.get(), amount, buffer, filter, pullerId);
         }
     }
 
+    /**
+     * Attempt to pull items from an inventory into a receiving buffer, using
+     * an inventory which has already been looked up for the given block (e.g.
+     * by a {@link NeighbourInventoryCache}).
+     *
+     * @param target
+     *            the block containing the target inventory
+     * @param targetInv
+     *            the block's inventory
+     * @param amount
+     *            the desired number of items
+     * @param buffer
+     *            an item stack into which to insert
+     *            the transferred items
+     * @param filter
+     *            a filter to whitelist/blacklist items
+     * @param pullerId
+     *            UUID of the player doing the pulling
+     *            (may be null or the UUID of an offline player)
+     *
+     * @return the items pulled, or null if nothing was pulled
+     */
+    @Nullable
+    public static ItemStack pullFromInventory(Block target, @Nonnull Inventory targetInv, int amount, ItemStack buffer, Filter filter, @Nullable UUID pullerId) {
+        if (pullerId == null || !SensibleToolbox.getInstance().getProtectionCache().hasPermission(pullerId, target, Interaction.INTERACT_BLOCK)) {
+            return null;
+        }
+
+        return pullFromInventory(targetInv, amount, buffer, filter);
+    }
+
     /**
      * Attempt to pull items from an inventory into a receiving buffer.
      *
@@ -0,0 +1,225 @@
+package io.github.thebusybiscuit.sensibletoolbox.core.energy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+import org.bukkit.Location;
+import org.bukkit.block.BlockFace;
+import org.junit.jupiter.api.Test;
+
+import io.github.thebusybiscuit.sensibletoolbox.api.energy.ChargeableBlock;
+import io.github.thebusybiscuit.sensibletoolbox.api.energy.EnergyNet;
+
+class TestParallelEnergySolver {
+
+    // enough nets for the parallel solver to split them over several tasks
+    private static final int NETS = 100;
+    private static final int TICKS = 50;
+    private static final UUID WORLD_ID = UUID.randomUUID();
+
+    @Test
+    void testParallelMatchesSerial() {
+        EnergyNetManager serial = new EnergyNetManager(false);
+        EnergyNetManager parallel = new EnergyNetManager(true);
+
+        try {
+            List<StubMachine> serialMachines = new ArrayList<>();
+            List<StubMachine> parallelMachines = new ArrayList<>();
+            List<STBEnergyNet> serialNets = buildNets(serial, serialMachines, new Random(42), false);
+            List<STBEnergyNet> parallelNets = buildNets(parallel, parallelMachines, new Random(42), false);
+
+            for (int tick = 0; tick < TICKS; tick++) {
+                serial.tick(serialNets);
+                parallel.tick(parallelNets);
+            }
+
+            assertSameCharges(serialMachines, parallelMachines);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelIsRepeatableWithSharedMachines() {
+        EnergyNetManager first = new EnergyNetManager(true);
+        EnergyNetManager second = new EnergyNetManager(true);
+
+        try {
+            List<StubMachine> firstMachines = new ArrayList<>();
+            List<StubMachine> secondMachines = new ArrayList<>();
+            List<STBEnergyNet> firstNets = buildNets(first, firstMachines, new Random(7), true);
+            List<STBEnergyNet> secondNets = buildNets(second, secondMachines, new Random(7), true);
+
+            for (int tick = 0; tick < TICKS; tick++) {
+                first.tick(firstNets);
+                second.tick(secondNets);
+            }
+
+            assertSameCharges(firstMachines, secondMachines);
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void testEnergyMoves() {
+        EnergyNetManager parallel = new EnergyNetManager(true);
+
+        try {
+            List<StubMachine> machines = new ArrayList<>();
+            List<STBEnergyNet> nets = buildNets(parallel, machines, new Random(1), false);
+            double before = machines.stream().filter(m -> !m.source).mapToDouble(StubMachine::getCharge).sum();
+
+            parallel.tick(nets);
+
+            double after = machines.stream().filter(m -> !m.source).mapToDouble(StubMachine::getCharge).sum();
+            assertNotEquals(before, after);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    private static void assertSameCharges(@Nonnull List<StubMachine> expected, @Nonnull List<StubMachine> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            // the solvers must agree exactly, not just to within some tolerance
+            assertEquals(expected.get(i).getCharge(), actual.get(i).getCharge(), 0.0, "charge of machine #" + i);
+        }
+    }
+
+    /**
+     * Build some nets of sources and sinks with random charges and rates, some with more
+     * supply than demand and some the other way round.
+     */
+    @Nonnull
+    private static List<STBEnergyNet> buildNets(@Nonnull EnergyNetManager manager, @Nonnull List<StubMachine> machines, @Nonnull Random random, boolean shareMachines) {
+        List<STBEnergyNet> nets = new ArrayList<>();
+        StubMachine shared = null;
+
+        for (int i = 0; i < NETS; i++) {
+            STBEnergyNet net = STBEnergyNet.createNet(WORLD_ID, manager);
+            int sources = 1 + random.nextInt(4);
+            int sinks = 1 + random.nextInt(6);
+
+            for (int j = 0; j < sources; j++) {
+                StubMachine machine = new StubMachine(true, random.nextInt(10000), 10000, 1 + random.nextInt(100));
+                machines.add(machine);
+                net.addMachine(machine, BlockFace.NORTH);
+            }
+
+            for (int j = 0; j < sinks; j++) {
+                StubMachine machine = new StubMachine(false, random.nextInt(1000), 1000 + random.nextInt(1000), 1 + random.nextInt(100));
+                machines.add(machine);
+                net.addMachine(machine, BlockFace.SOUTH);
+            }
+
+            if (shareMachines && i % 2 == 1) {
+                // a source on this net and the previous one, as a shared SCU relay would be
+                net.addMachine(shared, BlockFace.EAST);
+            } else if (shareMachines) {
+                shared = new StubMachine(true, 5000, 10000, 50);
+                machines.add(shared);
+                net.addMachine(shared, BlockFace.WEST);
+            }
+
+            nets.add(net);
+        }
+
+        return nets;
+    }
+
+    private static final class StubMachine implements ChargeableBlock {
+
+        private final boolean source;
+        private final int maxCharge;
+        private final int chargeRate;
+        private final Map<EnergyNet, List<BlockFace>> faces = new HashMap<>();
+        private double charge;
+
+        private StubMachine(boolean source, double charge, int maxCharge, int chargeRate) {
+            this.source = source;
+            this.charge = charge;
+            this.maxCharge = maxCharge;
+            this.chargeRate = chargeRate;
+        }
+
+        @Override
+        public double getCharge() {
+            return charge;
+        }
+
+        @Override
+        public void setCharge(double charge) {
+            this.charge = charge;
+        }
+
+        @Override
+        public int getMaxCharge() {
+            return maxCharge;
+        }
+
+        @Override
+        public int getChargeRate() {
+            return chargeRate;
+        }
+
+        @Nonnull
+        @Override
+        public Location getLocation() {
+            return new Location(null, 0, 0, 0);
+        }
+
+        @Override
+        public boolean acceptsEnergy(BlockFace face) {
+            return !source;
+        }
+
+        @Override
+        public boolean suppliesEnergy(BlockFace face) {
+            return source;
+        }
+
+        @Override
+        public void attachToEnergyNet(EnergyNet energyNet, BlockFace face) {
+            faces.computeIfAbsent(energyNet, net -> new ArrayList<>()).add(face);
+        }
+
+        @Override
+        public void detachFromEnergyNet(EnergyNet energyNet) {
+            faces.remove(energyNet);
+        }
+
+        @Nonnull
+        @Override
+        public List<BlockFace> getFacesForNet(EnergyNet energyNet) {
+            return faces.getOrDefault(energyNet, new ArrayList<>());
+        }
+
+        @Nonnull
+        @Override
+        public EnergyNet[] getAttachedEnergyNets() {
+            return faces.keySet().toArray(new EnergyNet[0]);
+        }
+
+        @Override
+        public int getChargeMeterSlot() {
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return (source ? "source" : "sink") + "[" + charge + "/" + maxCharge + "]";
+        }
+    }
+}